@@ -1,8 +1,23 @@
 package dev.michaud.greenpanda.core;
 
+import dev.michaud.greenpanda.core.commands.CoreCommand;
 import dev.michaud.greenpanda.core.commands.GiveItem;
 import dev.michaud.greenpanda.core.eventlistener.PlayerGetItemListener;
+import dev.michaud.greenpanda.core.eventlistener.PlayerItemIndexListener;
+import dev.michaud.greenpanda.core.eventlistener.PlayerPositionListener;
 import dev.michaud.greenpanda.core.eventlistener.PrepareAnvil;
+import dev.michaud.greenpanda.core.item.AnvilRepairable;
+import dev.michaud.greenpanda.core.item.CooldownManager;
+import dev.michaud.greenpanda.core.item.ItemRegistry;
+import dev.michaud.greenpanda.core.item.PlayerItemIndex;
+import dev.michaud.greenpanda.core.item.RecipeUnlockable;
+import dev.michaud.greenpanda.core.metrics.FileMetricsExporter;
+import dev.michaud.greenpanda.core.metrics.Metrics;
+import dev.michaud.greenpanda.core.util.PlayerSpatialIndex;
+import dev.michaud.greenpanda.core.util.TaskScheduler;
+import java.io.File;
+import java.io.IOException;
+import java.util.logging.Level;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
 import org.bukkit.plugin.java.JavaPlugin;
@@ -15,6 +30,11 @@ import org.bukkit.plugin.java.JavaPlugin;
  */
 public final class GreenPandaCore extends JavaPlugin {
 
+  /**
+   * How often the metrics are exported, in ticks.
+   */
+  private static final long METRICS_EXPORT_PERIOD = 20L * 60 * 5;
+
   private static GreenPandaCore core;
 
   /**
@@ -31,10 +51,29 @@ public final class GreenPandaCore extends JavaPlugin {
 
     core = this;
 
+    try {
+      ItemRegistry.loadPrototypeCache(new File(getDataFolder(), "item-prototypes.bin"));
+    } catch (IOException e) {
+      getLogger().log(Level.WARNING, "Could not load item prototype cache", e);
+    }
+
     getCommand("giveitem").setExecutor(new GiveItem());
+    getCommand("gpcore").setExecutor(new CoreCommand());
+
+    ItemRegistry.registerCapabilityListener(AnvilRepairable.class, new PrepareAnvil(), this);
+    ItemRegistry.registerCapabilityListener(RecipeUnlockable.class, new PlayerGetItemListener(),
+        this);
+    getServer().getPluginManager().registerEvents(new PlayerPositionListener(), this);
+    getServer().getPluginManager().registerEvents(new PlayerItemIndexListener(), this);
 
-    getServer().getPluginManager().registerEvents(new PrepareAnvil(), this);
-    getServer().getPluginManager().registerEvents(new PlayerGetItemListener(), this);
+    getServer().getOnlinePlayers().forEach(PlayerSpatialIndex::update);
+    getServer().getOnlinePlayers().forEach(PlayerItemIndex::seed);
+
+    CooldownManager.enable();
+
+    Metrics.addExporter(new FileMetricsExporter(new File(getDataFolder(), "metrics.txt")));
+    TaskScheduler.runGlobalTimer(() -> TaskScheduler.runAsync(Metrics::export),
+        METRICS_EXPORT_PERIOD, METRICS_EXPORT_PERIOD);
 
     getServer().getConsoleSender()
         .sendMessage(Component.text("[GPCore] Core Enabled").color(NamedTextColor.DARK_GREEN));
@@ -43,6 +82,16 @@ public final class GreenPandaCore extends JavaPlugin {
 
   @Override
   public void onDisable() {
+
+    CooldownManager.disable();
+    Metrics.export();
+
+    try {
+      ItemRegistry.savePrototypeCache();
+    } catch (IOException e) {
+      getLogger().log(Level.WARNING, "Could not save item prototype cache", e);
+    }
+
     getServer().getConsoleSender()
         .sendMessage(Component.text("[GPCore] Core Disabled").color(NamedTextColor.DARK_RED));
   }
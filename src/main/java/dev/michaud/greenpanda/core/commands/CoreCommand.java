@@ -0,0 +1,103 @@
+package dev.michaud.greenpanda.core.commands;
+
+import dev.michaud.greenpanda.core.metrics.Metrics;
+import dev.michaud.greenpanda.core.metrics.Timer;
+import dev.michaud.greenpanda.core.util.TaskScheduler;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.TabExecutor;
+import org.bukkit.util.StringUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Admin command for the core. {@code /gpcore stats [reset|export]} shows, clears or exports the
+ * {@link Metrics}. Only the busiest items are shown in chat, the exporters get every item.
+ */
+public class CoreCommand implements TabExecutor {
+
+  private static final int SHOWN_ITEMS = 10;
+
+  private static final List<String> SUBCOMMANDS = List.of("stats");
+  private static final List<String> STATS_ACTIONS = List.of("reset", "export");
+
+  @Override
+  public boolean onCommand(@NotNull CommandSender sender, @NotNull Command command,
+      @NotNull String label, @NotNull String[] args) {
+
+    if (args.length < 1 || !args[0].equalsIgnoreCase("stats")) {
+      return false;
+    }
+
+    if (args.length == 1) {
+      sendStats(sender);
+      return true;
+    }
+
+    if (args[1].equalsIgnoreCase("reset")) {
+      Metrics.reset();
+      sender.sendMessage(Component.text("[GPCore] Stats reset").color(NamedTextColor.GREEN));
+      return true;
+    }
+
+    if (args[1].equalsIgnoreCase("export")) {
+      TaskScheduler.runAsync(Metrics::export);
+      sender.sendMessage(Component.text("[GPCore] Exporting stats").color(NamedTextColor.GREEN));
+      return true;
+    }
+
+    return false;
+  }
+
+  private static void sendStats(@NotNull CommandSender sender) {
+
+    sender.sendMessage(Component.text("[GPCore] Stats (count, mean / p99 / max in µs)")
+        .color(NamedTextColor.DARK_GREEN));
+
+    for (Timer.Snapshot timer : Metrics.timerSnapshots()) {
+      sender.sendMessage(Component.text(String.format("%s: %d, %.1f / %.1f / %.1f", timer.name(),
+          timer.count(), timer.meanNanos() / 1000.0, timer.p99Nanos() / 1000.0,
+          timer.maxNanos() / 1000.0)));
+    }
+
+    for (Map.Entry<String, Long> counter : Metrics.namedCounterValues().entrySet()) {
+      sender.sendMessage(Component.text(counter.getKey() + ": " + counter.getValue())
+          .color(NamedTextColor.GRAY));
+    }
+
+    List<Metrics.ItemCallCounts> items = Metrics.busiestItems(SHOWN_ITEMS);
+
+    for (Metrics.ItemCallCounts item : items) {
+      sender.sendMessage(Component.text(String.format("%s: make_item %d, is_type %d", item.id(),
+          item.makeItem(), item.isType())).color(NamedTextColor.GRAY));
+    }
+
+    int hidden = Metrics.calledItemCount() - items.size();
+
+    if (hidden > 0) {
+      sender.sendMessage(Component.text("... and " + hidden
+          + " more items, use /gpcore stats export to see them").color(NamedTextColor.GRAY));
+    }
+
+  }
+
+  @Override
+  public @Nullable List<String> onTabComplete(@NotNull CommandSender sender,
+      @NotNull Command command, @NotNull String label, @NotNull String[] args) {
+
+    if (args.length == 1) {
+      return StringUtil.copyPartialMatches(args[0], SUBCOMMANDS, new ArrayList<>());
+    }
+
+    if (args.length == 2 && args[0].equalsIgnoreCase("stats")) {
+      return StringUtil.copyPartialMatches(args[1], STATS_ACTIONS, new ArrayList<>());
+    }
+
+    return List.of();
+  }
+}
\ No newline at end of file
@@ -2,69 +2,151 @@ package dev.michaud.greenpanda.core.commands;
 
 import dev.michaud.greenpanda.core.item.CustomItem;
 import dev.michaud.greenpanda.core.item.ItemRegistry;
+import dev.michaud.greenpanda.core.metrics.Metrics;
 import dev.michaud.greenpanda.core.util.TargetSelectors;
+import dev.michaud.greenpanda.core.util.TaskScheduler;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Queue;
 import org.bukkit.Bukkit;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabExecutor;
 import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.util.StringUtil;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 /**
  * Custom command to give a custom item to a player. Uses the {@link ItemRegistry} to get items.
+ * Usage: {@code /giveitem <player> <item> [amount]}.
  */
 public class GiveItem implements TabExecutor {
 
+  /**
+   * The most items that can be given to each player at once. The same as the vanilla give command.
+   */
+  private static final int MAX_AMOUNT = 6400;
+
+  /**
+   * How many players are given items each tick. Larger target sets are spread over several ticks.
+   */
+  private static final int TARGETS_PER_TICK = 20;
+
+  /**
+   * The most item ids suggested when tab completing.
+   */
+  private static final int MAX_COMPLETIONS = 200;
+
+  private static final List<String> SELECTORS = List.of("@a", "@p", "@r", "@s");
+
   @Override
   public boolean onCommand(@NotNull CommandSender sender, @NotNull Command command,
       @NotNull String label, @NotNull String[] args) {
 
+    long start = System.nanoTime();
+
+    try {
+      return giveItem(sender, args);
+    } finally {
+      Metrics.GIVE_ITEM.recordSince(start);
+    }
+
+  }
+
+  private boolean giveItem(@NotNull CommandSender sender, @NotNull String[] args) {
+
     if (args.length < 2) {
       return false;
     }
 
-    Player[] targets = TargetSelectors.playerFromEntities(
-        TargetSelectors.getTargets(sender, args[0]));
+    List<Player> targets = TargetSelectors.getTargets(sender, args[0], Player.class);
 
     if (targets == null) {
       Player target = Bukkit.getPlayer(args[0]);
       if (target == null) {
         return false;
       }
-      targets = new Player[]{target};
+      targets = List.of(target);
     }
 
     String itemName = String.join(" ", Arrays.asList(args).subList(1, args.length));
     CustomItem item = ItemRegistry.findCustomItem(itemName);
+    int amount = 1;
+
+    //The last argument is the amount, unless it's part of the item name
+    if (item == null && args.length > 2) {
 
-    if (item == null) {
+      try {
+        amount = Integer.parseInt(args[args.length - 1]);
+      } catch (NumberFormatException e) {
+        return false;
+      }
+
+      itemName = String.join(" ", Arrays.asList(args).subList(1, args.length - 1));
+      item = ItemRegistry.findCustomItem(itemName);
+
+    }
+
+    if (item == null || amount < 1 || amount > MAX_AMOUNT) {
       return false;
     }
 
-    for (Player p : targets) {
-      p.getInventory().addItem(item.makeItem());
+    ItemStack prototype = item.makeItem();
+
+    if (targets.size() <= TARGETS_PER_TICK) {
+      for (Player target : targets) {
+        give(target, prototype, amount);
+      }
+    } else {
+      new Distribution(targets, prototype, amount).start();
     }
 
     return true;
   }
 
+  /**
+   * Gives the player the amount of items, split into full stacks. Anything that doesn't fit in the
+   * inventory is dropped at the player's feet.
+   *
+   * @param player    The player to give the items to.
+   * @param prototype The item to give. Copied, never modified.
+   * @param amount    The number of items to give.
+   */
+  private static void give(@NotNull Player player, @NotNull ItemStack prototype, int amount) {
+
+    TaskScheduler.runForEntity(player, () -> {
+
+      int maxStackSize = Math.max(1, prototype.getMaxStackSize());
+      ItemStack[] stacks = new ItemStack[(amount + maxStackSize - 1) / maxStackSize];
+
+      for (int i = 0; i < stacks.length; i++) {
+        stacks[i] = prototype.clone();
+        stacks[i].setAmount(Math.min(maxStackSize, amount - i * maxStackSize));
+      }
+
+      for (ItemStack overflow : player.getInventory().addItem(stacks).values()) {
+        player.getWorld().dropItem(player.getLocation(), overflow);
+      }
+
+    });
+
+  }
+
   @Override
   public @Nullable List<String> onTabComplete(@NotNull CommandSender sender,
       @NotNull Command command, @NotNull String label, @NotNull String[] args) {
 
     if (args.length == 1) {
-      List<String> list = new ArrayList<>();
-      list.add("@a");
-      list.add("@p");
-      list.add("@r");
-      list.add("@s");
+      List<String> list = StringUtil.copyPartialMatches(args[0], SELECTORS, new ArrayList<>());
 
       for (Player player : Bukkit.getServer().getOnlinePlayers()) {
-        list.add(player.getName());
+        if (StringUtil.startsWithIgnoreCase(player.getName(), args[0])) {
+          list.add(player.getName());
+        }
       }
 
       return list;
@@ -72,10 +154,54 @@ public class GiveItem implements TabExecutor {
 
     if (args.length == 2) {
 
-      return ItemRegistry.getKeys().stream().toList();
+      return ItemRegistry.keysWithPrefix(args[1], MAX_COMPLETIONS);
+
+    }
+
+    return List.of();
+  }
+
+  /**
+   * Gives an item to a large set of players over several ticks, {@link #TARGETS_PER_TICK} at a
+   * time.
+   */
+  private static final class Distribution implements Runnable {
+
+    private final Queue<Player> targets;
+    private final ItemStack prototype;
+    private final int amount;
+    private TaskScheduler.Task task;
+
+    private Distribution(@NotNull List<Player> targets, @NotNull ItemStack prototype,
+        int amount) {
+      this.targets = new ArrayDeque<>(targets);
+      this.prototype = prototype;
+      this.amount = amount;
+    }
+
+    private void start() {
+      run();
+      task = TaskScheduler.runGlobalTimer(this, 1L, 1L);
+    }
+
+    @Override
+    public void run() {
+
+      for (int i = 0; i < TARGETS_PER_TICK && !targets.isEmpty(); i++) {
+
+        Player target = targets.poll();
+
+        if (target.isOnline()) {
+          give(target, prototype, amount);
+        }
+
+      }
+
+      if (targets.isEmpty() && task != null) {
+        task.cancel();
+      }
 
     }
 
-    return null;
   }
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package dev.michaud.greenpanda.core.eventlistener;
+
+import dev.michaud.greenpanda.core.item.ItemRegistry;
+import org.bukkit.event.Listener;
+
+/**
+ * A {@link Listener} that is only registered while at least one item with a certain capability is
+ * registered.
+ *
+ * @see ItemRegistry#registerCapabilityListener(Class, Listener, org.bukkit.plugin.Plugin)
+ */
+public interface CapabilityListener extends Listener {
+
+  /**
+   * Called after the listener is registered because an item with its capability was added. Events
+   * like joins that fired while it was unregistered were missed, so any state for players who are
+   * already online should be set up here. Does nothing by default.
+   */
+  default void onRegister() {
+  }
+
+  /**
+   * Called after the listener is unregistered because the last item with its capability was
+   * removed. Events the listener relies on to clean up after itself won't fire anymore, so any
+   * cached state should be cleared here.
+   */
+  void onUnregister();
+
+}
\ No newline at end of file
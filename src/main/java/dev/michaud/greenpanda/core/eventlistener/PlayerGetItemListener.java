@@ -1,15 +1,25 @@
 package dev.michaud.greenpanda.core.eventlistener;
 
+import com.destroystokyo.paper.event.server.ServerTickEndEvent;
 import dev.michaud.greenpanda.core.item.ItemRegistry;
 import dev.michaud.greenpanda.core.item.RecipeUnlockable;
-import java.util.Collection;
+import dev.michaud.greenpanda.core.metrics.Metrics;
+import dev.michaud.greenpanda.core.util.TaskScheduler;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import org.bukkit.Bukkit;
 import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
 import org.bukkit.entity.HumanEntity;
+import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
-import org.bukkit.event.Listener;
 import org.bukkit.event.entity.EntityPickupItemEvent;
 import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.inventory.ItemStack;
 import org.jetbrains.annotations.NotNull;
 
@@ -17,7 +27,70 @@ import org.jetbrains.annotations.NotNull;
  * Listens for when a player gets an item in order to unlock recipes.
  * @see RecipeUnlockable
  */
-public class PlayerGetItemListener implements Listener {
+public class PlayerGetItemListener implements CapabilityListener {
+
+  /**
+   * The unlockable recipes each online player is known to have discovered, so the recipe book is
+   * only touched the first time a recipe is unlocked. Concurrent, since on Folia each player's
+   * events fire on the thread of the region they are in.
+   */
+  private final Map<UUID, Set<NamespacedKey>> discovered = new ConcurrentHashMap<>();
+
+  /**
+   * The recipes waiting to be sent to each player. They are sent together at the end of the tick,
+   * so picking up a lot of items at once only updates the recipe book once.
+   */
+  private final Map<UUID, PendingDiscoveries> pending = new ConcurrentHashMap<>();
+
+  private record PendingDiscoveries(@NotNull HumanEntity player,
+                                    @NotNull Set<NamespacedKey> keys) {
+
+  }
+
+  @Override
+  public void onRegister() {
+    for (Player player : Bukkit.getOnlinePlayers()) {
+      TaskScheduler.runForEntity(player, () -> {
+        discovered.put(player.getUniqueId(), seedDiscovered(player));
+        checkInventory(player);
+      });
+    }
+  }
+
+  @Override
+  public void onUnregister() {
+    discovered.clear();
+    pending.clear();
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR)
+  private void onPlayerJoin(@NotNull PlayerJoinEvent event) {
+
+    Player player = event.getPlayer();
+
+    discovered.put(player.getUniqueId(), seedDiscovered(player));
+    checkInventory(player);
+
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR)
+  private void onPlayerQuit(@NotNull PlayerQuitEvent event) {
+    discovered.remove(event.getPlayer().getUniqueId());
+    pending.remove(event.getPlayer().getUniqueId());
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR)
+  private void onTickEnd(@NotNull ServerTickEndEvent event) {
+
+    if (pending.isEmpty()) {
+      return;
+    }
+
+    for (UUID uuid : pending.keySet()) {
+      sendDiscoveries(uuid);
+    }
+
+  }
 
   @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
   private void onPlayerPickupItem(@NotNull EntityPickupItemEvent event) {
@@ -26,15 +99,12 @@ public class PlayerGetItemListener implements Listener {
       return;
     }
 
-    ItemStack eventItem = event.getItem().getItemStack();
-    Collection<RecipeUnlockable> customItems = ItemRegistry.getValues(RecipeUnlockable.class);
-
-    for (RecipeUnlockable unlockable : customItems) {
-
-      if (checkItem(player, eventItem.getType(), unlockable)) {
-        return;
-      }
+    long start = System.nanoTime();
 
+    try {
+      checkItem(player, event.getItem().getItemStack().getType());
+    } finally {
+      Metrics.PICKUP_ITEM.recordSince(start);
     }
 
   }
@@ -42,62 +112,117 @@ public class PlayerGetItemListener implements Listener {
   @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
   private void onPlayerInventoryEvent(@NotNull InventoryClickEvent event) {
 
-    HumanEntity player = event.getWhoClicked();
+    long start = System.nanoTime();
 
-    ItemStack currentItem = event.getCurrentItem();
-    Collection<RecipeUnlockable> customItems = ItemRegistry.getValues(RecipeUnlockable.class);
+    try {
 
-    for (RecipeUnlockable unlockable : customItems) {
+      HumanEntity player = event.getWhoClicked();
+      ItemStack currentItem = event.getCurrentItem();
 
-      if (currentItem == null) {
-        break;
+      if (currentItem != null) {
+        checkItem(player, currentItem.getType());
       }
 
-      if (checkItem(player, currentItem.getType(), unlockable)) {
-        return;
-      }
+      checkInventory(player);
 
+    } finally {
+      Metrics.INVENTORY_CLICK.recordSince(start);
     }
 
-    for (RecipeUnlockable unlockable : customItems) {
+  }
+
+  private void checkInventory(@NotNull HumanEntity player) {
 
-      if (checkInventory(player, unlockable)) {
-        return;
+    for (ItemStack item : player.getInventory().getContents()) {
+
+      if (item == null) {
+        continue;
       }
 
+      checkItem(player, item.getType());
+
     }
 
   }
 
-  private static boolean checkInventory(@NotNull HumanEntity player,
-      @NotNull RecipeUnlockable unlockable) {
+  private void checkItem(@NotNull HumanEntity player, @NotNull Material material) {
 
-    for (ItemStack item : player.getInventory().getContents()) {
+    NamespacedKey[] keys = ItemRegistry.getUnlockedRecipes(material);
 
-      if (item == null) {
-        continue;
+    if (keys.length == 0) {
+      return;
+    }
+
+    Set<NamespacedKey> known = discovered.computeIfAbsent(player.getUniqueId(),
+        uuid -> seedDiscovered(player));
+
+    for (NamespacedKey key : keys) {
+      if (known.add(key)) {
+        queueDiscovery(player, key);
       }
+    }
+
+  }
 
-      if (checkItem(player, item.getType(), unlockable)) {
-        return true;
+  /**
+   * Queues a recipe to be sent to the player at the end of the tick. On Folia, where there is no
+   * single end of tick, the recipes are sent on the player's next tick instead.
+   */
+  private void queueDiscovery(@NotNull HumanEntity player, @NotNull NamespacedKey key) {
+
+    UUID uuid = player.getUniqueId();
+
+    pending.compute(uuid, (id, discoveries) -> {
+
+      if (discoveries == null) {
+        discoveries = new PendingDiscoveries(player, ConcurrentHashMap.newKeySet());
+
+        if (TaskScheduler.isFolia()) {
+          TaskScheduler.runForEntityLater(player, () -> sendDiscoveries(uuid), 1L);
+        }
       }
 
-    }
+      discoveries.keys().add(key);
+      return discoveries;
 
-    return false;
+    });
 
   }
 
+  /**
+   * Sends every queued recipe to the player in one call.
+   */
+  private void sendDiscoveries(@NotNull UUID uuid) {
+
+    PendingDiscoveries discoveries = pending.remove(uuid);
+
+    if (discoveries != null && !discoveries.keys().isEmpty()) {
+      discoveries.player().discoverRecipes(discoveries.keys());
+    }
 
-  private static boolean checkItem(HumanEntity player, Material eventMaterial,
-      @NotNull RecipeUnlockable unlockable) {
+  }
+
+  /**
+   * Finds which unlockable recipes the player has already discovered.
+   *
+   * @param player The player to check.
+   * @return A set of the discovered recipe keys.
+   */
+  private static @NotNull Set<NamespacedKey> seedDiscovered(@NotNull HumanEntity player) {
+
+    Set<NamespacedKey> known = ConcurrentHashMap.newKeySet();
+
+    for (RecipeUnlockable unlockable : ItemRegistry.getValues(RecipeUnlockable.class)) {
+
+      NamespacedKey key = unlockable.namespacedKey();
+
+      if (player.hasDiscoveredRecipe(key)) {
+        known.add(key);
+      }
 
-    if (eventMaterial == unlockable.recipeRequirement()) {
-      player.discoverRecipe(unlockable.namespacedKey());
-      return true;
     }
 
-    return false;
+    return known;
 
   }
 
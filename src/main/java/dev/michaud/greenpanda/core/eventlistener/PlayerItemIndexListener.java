@@ -0,0 +1,36 @@
+package dev.michaud.greenpanda.core.eventlistener;
+
+import dev.michaud.greenpanda.core.item.PlayerItemIndex;
+import io.papermc.paper.event.player.PlayerInventorySlotChangeEvent;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Keeps the {@link PlayerItemIndex} up to date. Every change to a player's inventory, whether from
+ * picking up, dropping, clicking, dying or a plugin, fires a slot change event once it's synced to
+ * the client, so only the changed slot needs to be looked at.
+ */
+public class PlayerItemIndexListener implements Listener {
+
+  @EventHandler(priority = EventPriority.LOWEST)
+  private void onPlayerJoin(@NotNull PlayerJoinEvent event) {
+    PlayerItemIndex.seed(event.getPlayer());
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR)
+  private void onPlayerQuit(@NotNull PlayerQuitEvent event) {
+    PlayerItemIndex.remove(event.getPlayer());
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR)
+  private void onSlotChange(@NotNull PlayerInventorySlotChangeEvent event) {
+
+    PlayerItemIndex.update(event.getPlayer(), event.getSlot(), event.getNewItemStack());
+
+  }
+
+}
\ No newline at end of file
@@ -0,0 +1,96 @@
+package dev.michaud.greenpanda.core.eventlistener;
+
+import dev.michaud.greenpanda.core.util.PlayerSpatialIndex;
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerMoveEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerRespawnEvent;
+import org.bukkit.event.player.PlayerTeleportEvent;
+import org.bukkit.event.vehicle.VehicleMoveEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Keeps the {@link PlayerSpatialIndex} up to date as players join, move and leave, and as worlds
+ * are unloaded.
+ */
+public class PlayerPositionListener implements Listener {
+
+  @EventHandler(priority = EventPriority.MONITOR)
+  private void onPlayerJoin(@NotNull PlayerJoinEvent event) {
+    PlayerSpatialIndex.update(event.getPlayer());
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR)
+  private void onPlayerQuit(@NotNull PlayerQuitEvent event) {
+    PlayerSpatialIndex.remove(event.getPlayer());
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+  private void onPlayerMove(@NotNull PlayerMoveEvent event) {
+
+    Location from = event.getFrom();
+    Location to = event.getTo();
+
+    //Only chunk changes move a player to another cell
+    if (from.getWorld() == to.getWorld()
+        && from.getBlockX() >> 4 == to.getBlockX() >> 4
+        && from.getBlockZ() >> 4 == to.getBlockZ() >> 4) {
+      return;
+    }
+
+    PlayerSpatialIndex.update(event.getPlayer(), to);
+
+  }
+
+  /**
+   * Players riding a vehicle don't fire move events, so update them when the vehicle moves.
+   */
+  @EventHandler(priority = EventPriority.MONITOR)
+  private void onVehicleMove(@NotNull VehicleMoveEvent event) {
+
+    Location from = event.getFrom();
+    Location to = event.getTo();
+
+    if (from.getWorld() == to.getWorld()
+        && from.getBlockX() >> 4 == to.getBlockX() >> 4
+        && from.getBlockZ() >> 4 == to.getBlockZ() >> 4) {
+      return;
+    }
+
+    for (Entity passenger : event.getVehicle().getPassengers()) {
+      if (passenger instanceof Player player) {
+        PlayerSpatialIndex.update(player, to);
+      }
+    }
+
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+  private void onPlayerTeleport(@NotNull PlayerTeleportEvent event) {
+    PlayerSpatialIndex.update(event.getPlayer(), event.getTo());
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR)
+  private void onPlayerChangedWorld(@NotNull PlayerChangedWorldEvent event) {
+    PlayerSpatialIndex.update(event.getPlayer());
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR)
+  private void onPlayerRespawn(@NotNull PlayerRespawnEvent event) {
+    PlayerSpatialIndex.update(event.getPlayer(), event.getRespawnLocation());
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+  private void onWorldUnload(@NotNull WorldUnloadEvent event) {
+    PlayerSpatialIndex.removeWorld(event.getWorld());
+  }
+
+}
\ No newline at end of file
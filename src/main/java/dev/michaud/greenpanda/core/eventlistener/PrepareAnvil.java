@@ -1,27 +1,54 @@
 package dev.michaud.greenpanda.core.eventlistener;
 
-import dev.michaud.greenpanda.core.GreenPandaCore;
 import dev.michaud.greenpanda.core.item.AnvilRepairData;
 import dev.michaud.greenpanda.core.item.AnvilRepairable;
 import dev.michaud.greenpanda.core.item.ItemRegistry;
-import java.util.List;
-import java.util.logging.Level;
+import dev.michaud.greenpanda.core.metrics.Metrics;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import org.bukkit.event.EventHandler;
-import org.bukkit.event.Listener;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.inventory.InventoryCloseEvent;
 import org.bukkit.event.inventory.PrepareAnvilEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.inventory.AnvilInventory;
 import org.bukkit.inventory.ItemStack;
-import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * Listens for when an anvil is prepared. Used for custom anvil recipes.
  */
-public class PrepareAnvil implements Listener {
+public class PrepareAnvil implements CapabilityListener {
+
+  /**
+   * The last repair computed for each player with an anvil open. The event fires again for every
+   * character typed and slot update, usually with inputs that haven't changed.
+   */
+  private final Map<UUID, AnvilMemo> memos = new ConcurrentHashMap<>();
+
+  @Override
+  public void onUnregister() {
+    memos.clear();
+  }
 
   @EventHandler
   private void onPrepareAnvil(@NotNull PrepareAnvilEvent event) {
 
+    long start = System.nanoTime();
+
+    try {
+      prepareAnvil(event);
+    } finally {
+      Metrics.PREPARE_ANVIL.recordSince(start);
+    }
+
+  }
+
+  private void prepareAnvil(@NotNull PrepareAnvilEvent event) {
+
     AnvilInventory inventory = event.getInventory();
     ItemStack item1 = inventory.getFirstItem();
     ItemStack item2 = inventory.getSecondItem();
@@ -30,20 +57,23 @@ public class PrepareAnvil implements Listener {
       return;
     }
 
-    List<AnvilRepairable> options = ItemRegistry.getValues(AnvilRepairable.class).stream()
-        .filter(c -> validRepairable(c, item1, item2)).toList();
+    AnvilRepairable repairable = ItemRegistry.findAnvilRepairable(item1);
 
-    if (options.isEmpty()) {
+    if (repairable == null || !repairable.validRepairMaterial(item2)) {
       return;
     }
 
-    if (options.size() > 1) {
-      GreenPandaCore.getCore().getLogger().log(Level.WARNING,
-          "More than one valid anvil recipe found. The first element will be chosen.");
+    String renameText = inventory.getRenameText();
+    UUID viewer = event.getView().getPlayer().getUniqueId();
+    AnvilMemo memo = memos.get(viewer);
+
+    if (memo == null || !memo.matches(repairable, item1, item2, renameText)) {
+      memo = new AnvilMemo(repairable, item1.clone(), item2.clone(), renameText,
+          repairable.anvilRepair(item1, item2, renameText));
+      memos.put(viewer, memo);
     }
 
-    AnvilRepairable repairable = options.get(0);
-    AnvilRepairData data = repairable.anvilRepair(item1, item2, inventory.getRenameText());
+    AnvilRepairData data = memo.data();
 
     if (data == null) {
       return;
@@ -61,18 +91,33 @@ public class PrepareAnvil implements Listener {
 
   }
 
-  @Contract("null, _, _ -> false")
-  private static boolean validRepairable(AnvilRepairable customItem, ItemStack item1, ItemStack item2) {
+  @EventHandler(priority = EventPriority.MONITOR)
+  private void onInventoryClose(@NotNull InventoryCloseEvent event) {
 
-    if (customItem == null || item1 == null || item2 == null) {
-      return false;
+    if (event.getInventory() instanceof AnvilInventory) {
+      memos.remove(event.getPlayer().getUniqueId());
     }
 
-    if (!customItem.isType(item1)) {
-      return false;
-    }
+  }
 
-    return customItem.validRepairMaterial(item2);
+  @EventHandler(priority = EventPriority.MONITOR)
+  private void onPlayerQuit(@NotNull PlayerQuitEvent event) {
+    memos.remove(event.getPlayer().getUniqueId());
+  }
+
+  /**
+   * A computed anvil repair, along with the inputs it was computed from.
+   */
+  private record AnvilMemo(AnvilRepairable repairable, ItemStack firstItem, ItemStack secondItem,
+                           String renameText, @Nullable AnvilRepairData data) {
+
+    boolean matches(AnvilRepairable repairable, ItemStack firstItem, ItemStack secondItem,
+        String renameText) {
+      return this.repairable == repairable
+          && Objects.equals(this.renameText, renameText)
+          && this.firstItem.equals(firstItem)
+          && this.secondItem.equals(secondItem);
+    }
 
   }
 
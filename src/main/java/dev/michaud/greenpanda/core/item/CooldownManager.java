@@ -0,0 +1,479 @@
+package dev.michaud.greenpanda.core.item;
+
+import dev.michaud.greenpanda.core.util.TaskScheduler;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Keeps track of item cooldowns for every player. Each player's cooldowns are stored in an array
+ * indexed by item handle, so checking one doesn't allocate or take a lock. Expiry is driven by a
+ * hashed timing wheel that is advanced by a single global task, which also sends the client
+ * cooldown overlays queued during the tick.
+ *
+ * <p>Safe to use from any thread. Changes are made under a lock, while reads only see the arrays
+ * and the current tick. {@link #enable()} must be called for cooldowns to expire.</p>
+ *
+ * @see Cooldownable
+ */
+public class CooldownManager {
+
+  /**
+   * The number of slots in the timing wheel. Cooldowns longer than this stay in their slot for
+   * more than one turn of the wheel.
+   */
+  private static final int WHEEL_SIZE = 512;
+  private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+  private static final Object lock = new Object();
+
+  /**
+   * The cooldown overlays to send at the end of the tick, keyed by {@link #key(int, int)}.
+   */
+  private static final LongLongMap overlays = new LongLongMap();
+
+  private static final long[][] wheel = new long[WHEEL_SIZE][];
+  private static final int[] wheelSizes = new int[WHEEL_SIZE];
+
+  private static final Map<UUID, PlayerCooldowns> players = new ConcurrentHashMap<>();
+  private static PlayerCooldowns[] playersByHandle = new PlayerCooldowns[16];
+
+  /**
+   * Reused by {@link #tick()} to hold the expired keys and the overlays to send. Only touched on
+   * the thread of the global task.
+   */
+  private static long[] expired = new long[16];
+  private static long[] sending = new long[16];
+
+  private static volatile long currentTick = 0;
+
+  private static @Nullable TaskScheduler.Task task;
+
+  static {
+    Arrays.setAll(wheel, slot -> new long[4]);
+  }
+
+  /**
+   * The cooldowns of one player.
+   */
+  private static final class PlayerCooldowns {
+
+    private final UUID uuid;
+    private final int handle;
+
+    /**
+     * The tick each item's cooldown ends on, indexed by item handle, or 0 if it has none. Only
+     * changed while holding the lock, and replaced with a larger copy when a new item handle
+     * doesn't fit.
+     */
+    private volatile AtomicLongArray ends = new AtomicLongArray(16);
+
+    private PlayerCooldowns(@NotNull UUID uuid, int handle) {
+      this.uuid = uuid;
+      this.handle = handle;
+    }
+
+    private long end(int itemHandle) {
+
+      AtomicLongArray current = ends;
+
+      return itemHandle < current.length() ? current.get(itemHandle) : 0;
+
+    }
+
+    /**
+     * Sets the end tick of an item's cooldown. Must hold the lock.
+     */
+    private void setEnd(int itemHandle, long end) {
+
+      AtomicLongArray current = ends;
+
+      if (itemHandle >= current.length()) {
+
+        AtomicLongArray larger = new AtomicLongArray(
+            Math.max(itemHandle + 1, current.length() * 2));
+
+        for (int i = 0; i < current.length(); i++) {
+          larger.set(i, current.get(i));
+        }
+
+        ends = current = larger;
+
+      }
+
+      current.set(itemHandle, end);
+
+    }
+
+  }
+
+  /**
+   * Starts the task that ends cooldowns. Called by the core when it's enabled.
+   */
+  public static void enable() {
+
+    synchronized (lock) {
+      if (task == null) {
+        task = TaskScheduler.runGlobalTimer(CooldownManager::tick, 1L, 1L);
+      }
+    }
+
+  }
+
+  /**
+   * Stops the task that ends cooldowns, and clears every cooldown.
+   */
+  public static void disable() {
+
+    synchronized (lock) {
+
+      if (task != null) {
+        task.cancel();
+        task = null;
+      }
+
+      for (PlayerCooldowns cooldowns : players.values()) {
+        cooldowns.ends = new AtomicLongArray(16);
+      }
+
+      overlays.clear();
+      Arrays.fill(wheelSizes, 0);
+
+    }
+
+  }
+
+  /**
+   * Puts the item on cooldown for the player, for {@link Cooldownable#cooldownTicks()}.
+   *
+   * @param player The player.
+   * @param item   The item.
+   */
+  public static void start(@NotNull Player player, @NotNull Cooldownable item) {
+    start(player, item, item.cooldownTicks());
+  }
+
+  /**
+   * Puts the item on cooldown for the player. Replaces any cooldown the item already had.
+   *
+   * @param player The player.
+   * @param item   The item. Must be registered.
+   * @param ticks  The length of the cooldown in ticks.
+   */
+  public static void start(@NotNull Player player, @NotNull CustomItem item, int ticks) {
+
+    int itemHandle = ItemRegistry.getHandle(item);
+
+    if (itemHandle < 0 || ticks <= 0) {
+      return;
+    }
+
+    synchronized (lock) {
+
+      PlayerCooldowns cooldowns = cooldowns(player);
+      long key = key(cooldowns.handle, itemHandle);
+      long end = currentTick + ticks;
+
+      cooldowns.setEnd(itemHandle, end);
+      schedule(key, end);
+
+      if (!(item instanceof Cooldownable cooldownable) || cooldownable.showCooldown()) {
+        overlays.put(key, ticks);
+      }
+
+    }
+
+  }
+
+  /**
+   * Puts the item on cooldown if it isn't already.
+   *
+   * @param player The player.
+   * @param item   The item.
+   * @return True if the item could be used, false if it was on cooldown.
+   */
+  public static boolean tryUse(@NotNull Player player, @NotNull Cooldownable item) {
+
+    synchronized (lock) {
+
+      if (isOnCooldown(player, item)) {
+        return false;
+      }
+
+      start(player, item);
+      return true;
+
+    }
+
+  }
+
+  /**
+   * Checks if the item is on cooldown for the player.
+   *
+   * @param player The player.
+   * @param item   The item.
+   * @return True if the item is on cooldown.
+   */
+  public static boolean isOnCooldown(@NotNull Player player, @NotNull CustomItem item) {
+    return remainingTicks(player, item) > 0;
+  }
+
+  /**
+   * Gets how long is left on the item's cooldown for the player. Doesn't take the lock.
+   *
+   * @param player The player.
+   * @param item   The item.
+   * @return The remaining ticks, or 0 if the item isn't on cooldown.
+   */
+  public static int remainingTicks(@NotNull Player player, @NotNull CustomItem item) {
+
+    int itemHandle = ItemRegistry.getHandle(item);
+    PlayerCooldowns cooldowns = players.get(player.getUniqueId());
+
+    if (itemHandle < 0 || cooldowns == null) {
+      return 0;
+    }
+
+    long end = cooldowns.end(itemHandle);
+
+    return end == 0 ? 0 : (int) Math.max(0, end - currentTick);
+
+  }
+
+  /**
+   * Ends the item's cooldown for the player early, without calling
+   * {@link Cooldownable#onCooldownEnd(Player)}. The client overlay is only removed if no other item
+   * on cooldown for the player shares the item's material, since the client shows one overlay per
+   * material.
+   *
+   * @param player The player.
+   * @param item   The item.
+   */
+  public static void clear(@NotNull Player player, @NotNull CustomItem item) {
+
+    int itemHandle = ItemRegistry.getHandle(item);
+
+    if (itemHandle < 0) {
+      return;
+    }
+
+    synchronized (lock) {
+
+      PlayerCooldowns cooldowns = players.get(player.getUniqueId());
+
+      if (cooldowns == null || cooldowns.end(itemHandle) <= currentTick) {
+        return;
+      }
+
+      //The wheel entry is dropped when its slot next comes round
+      cooldowns.setEnd(itemHandle, 0);
+
+      if ((!(item instanceof Cooldownable cooldownable) || cooldownable.showCooldown())
+          && !materialOnCooldown(cooldowns, item.baseMaterial())) {
+        overlays.put(key(cooldowns.handle, itemHandle), 0);
+      }
+
+    }
+
+  }
+
+  /**
+   * Advances the wheel by one tick, ending the cooldowns in the current slot and sending the
+   * queued overlays.
+   */
+  private static void tick() {
+
+    int expiredCount = 0;
+    int sendingCount = 0;
+
+    synchronized (lock) {
+
+      long now = ++currentTick;
+      int slot = (int) (now & WHEEL_MASK);
+      long[] keys = wheel[slot];
+      int kept = 0;
+
+      for (int i = 0; i < wheelSizes[slot]; i++) {
+
+        long key = keys[i];
+        PlayerCooldowns cooldowns = playersByHandle[playerHandle(key)];
+        long end = cooldowns.end(itemHandle(key));
+
+        //Cleared, or restarted and moved to another slot
+        if (end == 0 || (end & WHEEL_MASK) != slot) {
+          continue;
+        }
+
+        if (end > now) {
+          keys[kept++] = key;
+          continue;
+        }
+
+        cooldowns.setEnd(itemHandle(key), 0);
+
+        if (expiredCount == expired.length) {
+          expired = Arrays.copyOf(expired, expiredCount * 2);
+        }
+
+        expired[expiredCount++] = key;
+
+      }
+
+      wheelSizes[slot] = kept;
+
+      if (overlays.size() > 0) {
+
+        if (overlays.size() * 2 > sending.length) {
+          sending = new long[overlays.size() * 2];
+        }
+
+        sendingCount = overlays.size() * 2;
+
+        int[] index = {0};
+        overlays.forEach((key, ticks) -> {
+          sending[index[0]++] = key;
+          sending[index[0]++] = ticks;
+        });
+        overlays.clear();
+
+      }
+
+    }
+
+    for (int i = 0; i < expiredCount; i++) {
+      endCooldown(expired[i]);
+    }
+
+    for (int i = 0; i < sendingCount; i += 2) {
+      sendOverlay(sending[i], (int) sending[i + 1]);
+    }
+
+  }
+
+  private static void endCooldown(long key) {
+
+    Player player = player(key);
+
+    if (player != null && ItemRegistry.byHandle(itemHandle(key)) instanceof Cooldownable item) {
+      TaskScheduler.runForEntity(player, () -> item.onCooldownEnd(player));
+    }
+
+  }
+
+  private static void sendOverlay(long key, int ticks) {
+
+    Player player = player(key);
+    CustomItem item = ItemRegistry.byHandle(itemHandle(key));
+
+    if (player != null && item != null) {
+      Material material = item.baseMaterial();
+      TaskScheduler.runForEntity(player, () -> player.setCooldown(material, ticks));
+    }
+
+  }
+
+  /**
+   * Adds a key to the wheel slot of the tick it ends on. Must hold the lock.
+   */
+  private static void schedule(long key, long end) {
+
+    int slot = (int) (end & WHEEL_MASK);
+    int size = wheelSizes[slot];
+
+    if (size == wheel[slot].length) {
+      wheel[slot] = Arrays.copyOf(wheel[slot], size * 2);
+    }
+
+    wheel[slot][size] = key;
+    wheelSizes[slot] = size + 1;
+
+  }
+
+  /**
+   * Checks if any item on cooldown for the player has the given material. Must hold the lock.
+   */
+  private static boolean materialOnCooldown(@NotNull PlayerCooldowns cooldowns,
+      @NotNull Material material) {
+
+    AtomicLongArray ends = cooldowns.ends;
+
+    for (int itemHandle = 0; itemHandle < ends.length(); itemHandle++) {
+
+      if (ends.get(itemHandle) <= currentTick) {
+        continue;
+      }
+
+      CustomItem other = ItemRegistry.byHandle(itemHandle);
+
+      if (other != null && other.baseMaterial() == material) {
+        return true;
+      }
+
+    }
+
+    return false;
+
+  }
+
+  /**
+   * Gets the cooldowns of the player, giving them a handle if they don't have one yet. Handles last
+   * until the server stops, so cooldowns carry over if the player rejoins. Must hold the lock.
+   */
+  private static @NotNull PlayerCooldowns cooldowns(@NotNull Player player) {
+
+    PlayerCooldowns cooldowns = players.get(player.getUniqueId());
+
+    if (cooldowns != null) {
+      return cooldowns;
+    }
+
+    int handle = players.size();
+
+    if (handle == playersByHandle.length) {
+      playersByHandle = Arrays.copyOf(playersByHandle, handle * 2);
+    }
+
+    cooldowns = new PlayerCooldowns(player.getUniqueId(), handle);
+    playersByHandle[handle] = cooldowns;
+    players.put(player.getUniqueId(), cooldowns);
+
+    return cooldowns;
+
+  }
+
+  /**
+   * Gets the online player of a key.
+   */
+  @Nullable
+  private static Player player(long key) {
+
+    PlayerCooldowns cooldowns;
+
+    synchronized (lock) {
+      cooldowns = playersByHandle[playerHandle(key)];
+    }
+
+    return cooldowns == null ? null : Bukkit.getPlayer(cooldowns.uuid);
+
+  }
+
+  private static long key(int playerHandle, int itemHandle) {
+    return ((long) playerHandle << 32) | (itemHandle & 0xFFFFFFFFL);
+  }
+
+  private static int playerHandle(long key) {
+    return (int) (key >>> 32);
+  }
+
+  private static int itemHandle(long key) {
+    return (int) key;
+  }
+
+}
\ No newline at end of file
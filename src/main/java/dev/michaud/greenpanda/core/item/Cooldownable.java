@@ -0,0 +1,38 @@
+package dev.michaud.greenpanda.core.item;
+
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Represents an item that has a cooldown after being used.
+ *
+ * @see CooldownManager
+ */
+public interface Cooldownable extends CustomItem {
+
+  /**
+   * Gets how long the item can't be used for after being used.
+   *
+   * @return The cooldown in ticks.
+   */
+  int cooldownTicks();
+
+  /**
+   * If the cooldown should be shown on the client, like an ender pearl. The client shows cooldowns
+   * per {@link org.bukkit.Material}, so every item with the same base material shows it.
+   *
+   * @return True if the cooldown overlay should be shown.
+   */
+  default boolean showCooldown() {
+    return true;
+  }
+
+  /**
+   * Called on the player's thread when the cooldown ends, if the player is online.
+   *
+   * @param player The player whose cooldown ended.
+   */
+  default void onCooldownEnd(@NotNull Player player) {
+  }
+
+}
\ No newline at end of file
@@ -1,12 +1,11 @@
 package dev.michaud.greenpanda.core.item;
 
-import java.util.Objects;
+import dev.michaud.greenpanda.core.metrics.Metrics;
 import net.kyori.adventure.text.Component;
 import org.bukkit.Material;
 import org.bukkit.NamespacedKey;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
-import org.bukkit.persistence.PersistentDataContainer;
 import org.bukkit.persistence.PersistentDataType;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.jetbrains.annotations.NotNull;
@@ -32,6 +31,19 @@ public interface CustomItem {
    */
   @NotNull String customId();
 
+  /**
+   * Gets the namespaced id of this item, made from the namespace of
+   * {@link CustomItem#getOwnerPlugin()} and {@link CustomItem#customId()}. The {@link ItemRegistry}
+   * uses this as the key, so items from different plugins can share a custom id. Custom ids that
+   * aren't valid key paths are converted with
+   * {@link CustomItemKeys#itemKey(org.bukkit.plugin.Plugin, String)}.
+   *
+   * @return The namespaced id of this item.
+   */
+  default @NotNull NamespacedKey namespacedId() {
+    return CustomItemKeys.itemKey(getOwnerPlugin(), customId());
+  }
+
   /**
    * Gets the custom model data for the item. 0 if no custom model data is required.
    *
@@ -56,27 +68,91 @@ public interface CustomItem {
   @NotNull Material baseMaterial();
 
   /**
-   * Creates a new {@link ItemStack} for this item. By default, this automatically sets the display
-   * name, model data, and custom id.
+   * Gets the {@link NamespacedKey} that the custom id is stored under in an item's persistent data
+   * container. The key is cached per plugin.
+   *
+   * @return The custom id key in the namespace of {@link CustomItem#getOwnerPlugin()}.
+   */
+  default @NotNull NamespacedKey customIdKey() {
+    return CustomItemKeys.customIdKey(getOwnerPlugin());
+  }
+
+  /**
+   * Creates a new {@link ItemStack} for this item. Once the item is registered, this returns a copy
+   * of a prototype stack that the {@link ItemRegistry} builds with {@link CustomItem#createItem()}
+   * the first time it's needed.
    *
    * @return A new item stack for this item.
    */
   default @NotNull ItemStack makeItem() {
 
+    Metrics.ItemCalls calls = ItemRegistry.itemCalls(this);
+
+    if (calls != null) {
+      calls.makeItem().increment();
+    }
+
+    ItemStack prototype = ItemRegistry.prototype(this);
+
+    if (prototype == null) {
+      return createItem();
+    }
+
+    return prototype.clone();
+
+  }
+
+  /**
+   * Creates a new {@link ItemStack} for this item with the given amount.
+   *
+   * @param amount The amount of items in the stack.
+   * @return A new item stack for this item.
+   * @see CustomItem#makeItem()
+   */
+  default @NotNull ItemStack makeItem(int amount) {
+
+    ItemStack item = makeItem();
+    item.setAmount(amount);
+
+    return item;
+
+  }
+
+  /**
+   * Builds the {@link ItemStack} for this item from scratch. By default, this automatically sets
+   * the display name, model data and custom id. Override this instead of
+   * {@link CustomItem#makeItem()} to keep the prototype caching.
+   *
+   * @return A new item stack for this item.
+   */
+  default @NotNull ItemStack createItem() {
+
     ItemStack item = new ItemStack(baseMaterial(), 1);
     ItemMeta meta = item.getItemMeta();
 
-    NamespacedKey key = new NamespacedKey(getOwnerPlugin(), "custom_item_id");
-
     meta.displayName(displayName());
     meta.setCustomModelData(customModelData());
-    meta.getPersistentDataContainer().set(key, PersistentDataType.STRING, customId());
+    meta.getPersistentDataContainer().set(customIdKey(), PersistentDataType.STRING, customId());
 
     item.setItemMeta(meta);
     return item;
 
   }
 
+  /**
+   * Gets a hash of anything else {@link CustomItem#createItem()} depends on, such as values read
+   * from a config file. Prototypes cached on disk are rebuilt when this changes. The item class,
+   * plugin version and plugin jar are already taken into account.
+   *
+   * <p>Prototypes are only cached for items that override this, so the cache is never used for an
+   * item whose extra inputs it doesn't know about. Return a constant if there are none.</p>
+   *
+   * @return A hash of the item's extra definition. 0 by default.
+   */
+  default long definitionHash() {
+    return 0;
+  }
+
   /**
    * <p>Checks if the given {@link ItemStack} is of the same type as this {@link CustomItem}.
    * <p>An item is defined as the same type if {@link ItemStack#getType()} is equal
@@ -88,20 +164,20 @@ public interface CustomItem {
    */
   default boolean isType(ItemStack item) {
 
-    if (item == null || item.getType() != baseMaterial()) {
-      return false;
-    }
+    Metrics.ItemCalls calls = ItemRegistry.itemCalls(this);
 
-    PersistentDataContainer dataContainer = item.getItemMeta().getPersistentDataContainer();
-    NamespacedKey key = new NamespacedKey(getOwnerPlugin(), "custom_item_id");
+    if (calls != null) {
+      calls.isType().increment();
+    }
 
-    if (!dataContainer.has(key, PersistentDataType.STRING)) {
+    if (item == null || item.getType() != baseMaterial() || !item.hasItemMeta()) {
       return false;
     }
 
-    String itemId = dataContainer.get(key, PersistentDataType.STRING);
+    String itemId = item.getItemMeta().getPersistentDataContainer()
+        .get(customIdKey(), PersistentDataType.STRING);
 
-    return Objects.equals(itemId, customId());
+    return customId().equals(itemId);
   }
 
 }
\ No newline at end of file
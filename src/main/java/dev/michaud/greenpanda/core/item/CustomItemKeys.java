@@ -0,0 +1,66 @@
+package dev.michaud.greenpanda.core.item;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.bukkit.NamespacedKey;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Caches the {@link NamespacedKey}s used to store custom item data, so they are created once per
+ * plugin instead of on every item check. Keys are cached by namespace rather than by plugin
+ * instance, so a plugin that is disabled and reloaded doesn't keep its old class loader alive.
+ */
+public final class CustomItemKeys {
+
+  private static final String CUSTOM_ITEM_ID = "custom_item_id";
+
+  private static final Map<String, NamespacedKey> idKeys = new ConcurrentHashMap<>();
+
+  private CustomItemKeys() {
+  }
+
+  /**
+   * Gets the key that stores the custom item id of items owned by the given plugin.
+   *
+   * @param plugin The plugin that owns the item.
+   * @return The custom item id key in the namespace of the plugin.
+   */
+  public static @NotNull NamespacedKey customIdKey(@NotNull Plugin plugin) {
+    return idKeys.computeIfAbsent(plugin.getName().toLowerCase(Locale.ROOT),
+        namespace -> new NamespacedKey(plugin, CUSTOM_ITEM_ID));
+  }
+
+  /**
+   * Gets the key of an item with the given custom id. Any custom id is accepted. If the id isn't a
+   * valid key path, it's lower cased, invalid characters are replaced with underscores, and a hash
+   * of the original id is added so different ids still get different keys.
+   *
+   * @param plugin   The plugin that owns the item.
+   * @param customId The custom id of the item.
+   * @return The item key in the namespace of the plugin.
+   */
+  public static @NotNull NamespacedKey itemKey(@NotNull Plugin plugin, @NotNull String customId) {
+
+    StringBuilder path = new StringBuilder(customId.length());
+
+    for (int i = 0; i < customId.length(); i++) {
+
+      char c = Character.toLowerCase(customId.charAt(i));
+      boolean valid = (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+          || c == '/' || c == '.' || c == '_' || c == '-';
+
+      path.append(valid ? c : '_');
+
+    }
+
+    if (!path.toString().equals(customId)) {
+      path.append('_').append(Integer.toHexString(customId.hashCode()));
+    }
+
+    return new NamespacedKey(plugin, path.toString());
+
+  }
+
+}
\ No newline at end of file
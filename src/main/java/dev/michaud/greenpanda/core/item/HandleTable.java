@@ -0,0 +1,50 @@
+package dev.michaud.greenpanda.core.item;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.bukkit.NamespacedKey;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Assigns every item key a dense integer handle the first time it's registered. Handles are never
+ * reused, so a handle always refers to the same item key, even after the item is unregistered.
+ *
+ * <p>Handles only live as long as the server. They are never written to item stacks, which only
+ * store the custom id, so stacks made by any version of an item keep stacking together.</p>
+ *
+ * <p>Not thread safe. Only used by the {@link ItemRegistry} while holding its lock.</p>
+ */
+final class HandleTable {
+
+  private final Map<NamespacedKey, Integer> handles = new HashMap<>();
+
+  /**
+   * Gets the handle of the given key, assigning a new one if it doesn't have one yet.
+   *
+   * @param key The item key.
+   * @return The handle of the key.
+   */
+  int assign(@NotNull NamespacedKey key) {
+    return handles.computeIfAbsent(key, k -> handles.size());
+  }
+
+  /**
+   * Gets the handle of the given key, without assigning one.
+   *
+   * @param key The item key.
+   * @return The handle of the key, or -1 if it doesn't have one.
+   */
+  int get(@NotNull NamespacedKey key) {
+    return handles.getOrDefault(key, -1);
+  }
+
+  /**
+   * Gets the number of handles that have been assigned. Every handle is less than this.
+   *
+   * @return The number of handles.
+   */
+  int size() {
+    return handles.size();
+  }
+
+}
@@ -1,30 +1,79 @@
 package dev.michaud.greenpanda.core.item;
 
+import dev.michaud.greenpanda.core.GreenPandaCore;
+import dev.michaud.greenpanda.core.eventlistener.CapabilityListener;
+import dev.michaud.greenpanda.core.metrics.Metrics;
+import dev.michaud.greenpanda.core.util.TaskScheduler;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.logging.Level;
 import javax.annotation.Nullable;
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.Server;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.Recipe;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataType;
+import org.bukkit.plugin.Plugin;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
-import org.jetbrains.annotations.UnmodifiableView;
+import org.jetbrains.annotations.Unmodifiable;
 
 /**
- * Register custom items here. Stores the item id and the {@link CustomItem} class in a hashmap.
+ * Register custom items here. Stores the {@link CustomItem} classes in a hashmap keyed by
+ * {@link CustomItem#namespacedId()}, and gives each a dense integer handle.
+ *
+ * <p>The registry is safe to read from any thread. Every change builds a new immutable
+ * {@link RegistrySnapshot} under a lock and swaps it in, so reads never block and always see a
+ * consistent set of items.</p>
  */
 public class ItemRegistry {
 
-  private static final Map<String, CustomItem> map = new HashMap<>();
+  private static final Object lock = new Object();
+
+  private static final HandleTable handles = new HandleTable();
+
+  private static volatile RegistrySnapshot snapshot = RegistrySnapshot.EMPTY;
+
+  private static volatile PrototypeCache prototypeCache;
+
+  private static final List<CapabilityBinding> capabilityListeners = new ArrayList<>();
 
   /**
-   * Gets an unmodifiable view of the registry containing all registered items.
+   * Gets an unmodifiable snapshot of the registry containing all registered items, keyed by custom
+   * id. If items from different plugins share a custom id, only the one registered first is
+   * included. Later changes to the registry are not reflected in the returned map.
    *
    * @return The map containing all registered items.
+   * @see #getKeyedMap()
    */
   @Contract(pure = true)
-  public static @NotNull @UnmodifiableView Map<String, CustomItem> getMap() {
-    return Collections.unmodifiableMap(map);
+  public static @NotNull @Unmodifiable Map<String, CustomItem> getMap() {
+    return snapshot.items;
+  }
+
+  /**
+   * Gets an unmodifiable snapshot of the registry containing all registered items, keyed by
+   * {@link CustomItem#namespacedId()}. Later changes to the registry are not reflected in the
+   * returned map.
+   *
+   * @return The map containing all registered items.
+   */
+  @Contract(pure = true)
+  public static @NotNull @Unmodifiable Map<NamespacedKey, CustomItem> getKeyedMap() {
+    return snapshot.byKey;
   }
 
   /**
@@ -33,25 +82,215 @@ public class ItemRegistry {
    * @return A collection containing all registered items.
    */
   @Contract(pure = true)
-  public static @UnmodifiableView @NotNull Collection<CustomItem> getValues() {
-    return getMap().values();
+  public static @Unmodifiable @NotNull Collection<CustomItem> getValues() {
+    return getKeyedMap().values();
   }
 
   /**
    * Gets an unmodifiable {@link Collection} of every {@link CustomItem} currently registered with
-   * the given class type.
+   * the given class type. The result is cached until the registry next changes, so repeated calls
+   * don't filter the whole registry again.
    *
    * @param type The class type to filter by.
    * @return A collection containing all registered items of the given class type.
    */
   @Contract(pure = true)
-  public static <A extends CustomItem> @UnmodifiableView @NotNull Collection<A> getValues(
+  public static <A extends CustomItem> @Unmodifiable @NotNull Collection<A> getValues(
       @NotNull Class<A> type) {
+    return snapshot.filter(type);
+  }
+
+  /**
+   * Gets the recipe keys of every {@link RecipeUnlockable} that is unlocked by obtaining the given
+   * {@link Material}. The returned array is shared, so it must not be modified.
+   *
+   * @param material The material that was obtained.
+   * @return The keys of the recipes to unlock. Empty if there are none.
+   */
+  @NotNull
+  @Contract(pure = true)
+  public static NamespacedKey[] getUnlockedRecipes(Material material) {
+
+    if (material == null) {
+      return RegistrySnapshot.NO_KEYS;
+    }
+
+    return snapshot.unlocks.getOrDefault(material, RegistrySnapshot.NO_KEYS);
+
+  }
+
+  /**
+   * Finds the registered {@link CustomItem} that the given {@link ItemStack} is an instance of. The
+   * item meta is only read once, instead of once per item as when calling
+   * {@link CustomItem#isType(ItemStack)} on every registered item. Items that override
+   * {@link CustomItem#isType(ItemStack)} are asked directly, so they still decide which stacks are
+   * theirs.
+   *
+   * @param item The item stack to identify.
+   * @return The custom item the stack is an instance of, or null if it isn't a custom item.
+   */
+  @Nullable
+  @Contract("null -> null")
+  public static CustomItem identify(ItemStack item) {
+    return identify(snapshot, item);
+  }
+
+  /**
+   * Finds the {@link AnvilRepairable} that the given {@link ItemStack} is an instance of. Items
+   * whose material has no anvil recipes are rejected without reading their item meta.
+   *
+   * @param item The item in the first slot of the anvil.
+   * @return The anvil repairable item, or null if the item can't be repaired in an anvil.
+   */
+  @Nullable
+  @Contract("null -> null")
+  public static AnvilRepairable findAnvilRepairable(ItemStack item) {
+
+    if (item == null) {
+      return null;
+    }
+
+    final RegistrySnapshot current = snapshot;
+
+    if (!current.customAnvilTypes && !current.anvilMaterials.contains(item.getType())) {
+      return null;
+    }
+
+    return identify(current, item) instanceof AnvilRepairable repairable ? repairable : null;
+
+  }
+
+  /**
+   * Gets the prototype {@link ItemStack} of the given item, building it with
+   * {@link CustomItem#createItem()} if needed. The prototype is shared, so callers must clone it.
+   *
+   * @param item The item to get the prototype of.
+   * @return The prototype, or null if the item isn't registered.
+   */
+  @Nullable
+  static ItemStack prototype(@NotNull CustomItem item) {
+
+    final RegistrySnapshot current = snapshot;
+    final int handle = current.handle(item);
+
+    if (handle < 0) {
+      return null;
+    }
+
+    ItemStack prototype = current.prototypes.get(handle);
+
+    if (prototype == null) {
+      PrototypeCache cache = prototypeCache;
+      prototype = cache == null ? item.createItem() : cache.get(item);
+
+      if (!current.prototypes.compareAndSet(handle, null, prototype)) {
+        prototype = current.prototypes.get(handle);
+      }
+    }
+
+    return prototype;
+
+  }
+
+  /**
+   * Gets the {@link Metrics} call counters of the given item.
+   *
+   * @param item The item to get the counters of.
+   * @return The counters, or null if the item isn't registered.
+   */
+  @Nullable
+  static Metrics.ItemCalls itemCalls(@NotNull CustomItem item) {
+
+    final RegistrySnapshot current = snapshot;
+    final int handle = current.handle(item);
+
+    return handle < 0 ? null : current.calls[handle];
+
+  }
+
+  /**
+   * Gets the handle of the given item. Handles are small integers given out in the order items are
+   * first registered, and an item keeps its handle if it's unregistered and registered again.
+   * Handles only last until the server stops, and are never stored on item stacks. Other instances
+   * of a registered item class get the handle of the registered item with the same namespaced id.
+   *
+   * @param item The item to get the handle of.
+   * @return The handle, or -1 if the item isn't registered.
+   */
+  @Contract(pure = true)
+  public static int getHandle(@NotNull CustomItem item) {
+    return snapshot.handle(item);
+  }
+
+  /**
+   * Gets the registered item with the given handle.
+   *
+   * @param handle The handle of the item.
+   * @return The item, or null if no registered item has that handle.
+   * @see #getHandle(CustomItem)
+   */
+  @Nullable
+  @Contract(pure = true)
+  public static CustomItem byHandle(int handle) {
+    return snapshot.byHandle(handle);
+  }
+
+  /**
+   * Registers the listener with the server while at least one item with the given capability is
+   * registered, and unregisters it when the last one is removed. Events the listener handles then
+   * cost nothing on servers that don't use the capability. The listener is registered and
+   * unregistered on the global thread, so it may start a tick after the item is registered.
+   *
+   * <pre>{@code
+   * ItemRegistry.registerCapabilityListener(AnvilRepairable.class, new PrepareAnvil(), plugin);
+   * }</pre>
+   *
+   * @param capability The class type the listener is needed for.
+   * @param listener   The listener. If it's a {@link CapabilityListener}, it's told when it's
+   *                   registered and unregistered.
+   * @param plugin     The plugin to register the listener for.
+   */
+  public static void registerCapabilityListener(@NotNull Class<? extends CustomItem> capability,
+      @NotNull Listener listener, @NotNull Plugin plugin) {
+
+    synchronized (lock) {
+
+      CapabilityBinding binding = new CapabilityBinding(capability, listener, plugin);
+
+      capabilityListeners.add(binding);
+      binding.update(snapshot);
+
+    }
+
+  }
+
+  /**
+   * Loads prototype stacks cached in the given file, so items don't need to be built again on
+   * every startup. Entries are only read when their item is first made, and only used if the item's
+   * definition hasn't changed. Prototypes built this session are written back by
+   * {@link #savePrototypeCache()}.
+   *
+   * @param file The file to cache prototypes in.
+   * @throws IOException If the file exists but can't be read.
+   * @see CustomItem#definitionHash()
+   */
+  public static void loadPrototypeCache(@NotNull File file) throws IOException {
+    prototypeCache = PrototypeCache.open(file);
+  }
 
-    return getValues().stream()
-        .filter(type::isInstance)
-        .map(type::cast)
-        .toList();
+  /**
+   * Writes prototypes built since the cache was loaded to the cache file. Does nothing if
+   * {@link #loadPrototypeCache(File)} hasn't been called.
+   *
+   * @throws IOException If the file can't be written.
+   */
+  public static void savePrototypeCache() throws IOException {
+
+    PrototypeCache cache = prototypeCache;
+
+    if (cache != null) {
+      cache.save();
+    }
 
   }
 
@@ -61,14 +300,31 @@ public class ItemRegistry {
    * @return A set containing all registered item ids.
    */
   @Contract(pure = true)
-  public static @UnmodifiableView @NotNull Set<String> getKeys() {
+  public static @Unmodifiable @NotNull Set<String> getKeys() {
     return getMap().keySet();
   }
 
   /**
-   * Registers the given custom item. Uses the item's customId as the key, so it will fail if there
-   * is already an item with that id. If the item inherits craftable, it will also register the
-   * recipe.
+   * Gets the registered item ids that start with the given prefix, ignoring case. If the prefix
+   * contains a colon, it's matched against namespaced ids like {@code plugin:item} instead.
+   *
+   * @param prefix The prefix to search for.
+   * @param limit  The maximum number of ids to return.
+   * @return The matching ids, in alphabetical order.
+   */
+  public static @NotNull List<String> keysWithPrefix(@NotNull String prefix, int limit) {
+
+    RegistrySnapshot current = snapshot;
+    KeyIndex index = prefix.indexOf(':') >= 0 ? current.namespacedIds : current.ids;
+
+    return index.withPrefix(prefix, limit);
+
+  }
+
+  /**
+   * Registers the given custom item. Uses the item's namespacedId as the key, so it will fail if
+   * the owner plugin has already registered an item with that id. If the item inherits craftable,
+   * it will also register the recipe, and fails if another recipe already uses the recipe's key.
    *
    * @param item The custom item to register.
    * @return True if the item was registered, false otherwise.
@@ -80,19 +336,17 @@ public class ItemRegistry {
       return false;
     }
 
-    final String key = item.customId();
+    synchronized (lock) {
 
-    if (key.isBlank() || map.containsKey(key)) {
-      return false;
-    }
+      WorkingCopy items = new WorkingCopy(snapshot);
 
-    if (item instanceof Craftable craftable) {
-      item.getOwnerPlugin().getServer().addRecipe(craftable.recipe());
-    }
+      if (!register(items, item)) {
+        return false;
+      }
 
-    map.put(key, item);
+      return commit(items);
 
-    return true;
+    }
 
   }
 
@@ -100,24 +354,30 @@ public class ItemRegistry {
    * Removes the given custom item from the registry. If the item inherits craftable, it will also
    * remove the recipe.
    *
-   * @param key The key of the custom item to remove.
+   * @param key The key of the custom item to remove, either a custom id or a namespaced id.
    * @return True if the item was removed, false otherwise.
+   * @see #findCustomItem(String)
    */
   @Contract("null -> false")
   public static boolean unregisterItem(String key) {
 
-    if (key == null || key.isBlank() || !map.containsKey(key)) {
+    if (key == null || key.isBlank()) {
       return false;
     }
 
-    final CustomItem item = map.get(key);
+    synchronized (lock) {
+
+      final CustomItem item = findCustomItem(key);
+
+      return unregisterItem(item);
+
+    }
 
-    return unregisterItem(item);
   }
 
   /**
    * Removes the given custom item from the registry. If the item inherits craftable, it will also
-   * remove the recipe. Uses the item's customId as the key.
+   * remove the recipe. Uses the item's namespacedId as the key.
    *
    * @param item The item to remove.
    * @return True if the item was removed, false otherwise.
@@ -129,25 +389,24 @@ public class ItemRegistry {
       return false;
     }
 
-    final String key = item.customId();
+    synchronized (lock) {
 
-    if (key.isBlank() || !map.containsKey(key)) {
-      return false;
-    }
+      WorkingCopy items = new WorkingCopy(snapshot);
 
-    if (item instanceof Craftable craftable) {
-      item.getOwnerPlugin().getServer().removeRecipe(craftable.namespacedKey());
-    }
+      if (!unregister(items, item)) {
+        return false;
+      }
 
-    map.remove(key);
+      return commit(items);
 
-    return true;
+    }
 
   }
 
   /**
-   * Registers the given custom item, or replaces an existing item with the same customId if one
-   * exists. Uses the item's customId as the key.
+   * Registers the given custom item, or replaces an existing item with the same namespacedId if one
+   * exists. The replacement keeps the handle of the old item. Its prototype stack is rebuilt on the
+   * next {@link CustomItem#makeItem()}, even if the same instance is passed again.
    *
    * @param item The item to register/ update.
    * @return True if the item was registered or updated, false otherwise.
@@ -159,26 +418,103 @@ public class ItemRegistry {
       return false;
     }
 
-    final String key = item.customId();
+    synchronized (lock) {
 
-    if (map.containsKey(key)) {
-      boolean unregistered = unregisterItem(key);
+      WorkingCopy items = new WorkingCopy(snapshot);
 
-      if (!unregistered) {
+      if (!update(items, item)) {
         return false;
       }
 
+      return commit(items);
+
     }
 
-    return registerItem(item);
+  }
+
+  /**
+   * Registers or replaces every given item, as if calling {@link #updateItem(CustomItem)} on each.
+   * The registry is only rebuilt once, and readers see either none or all the changes.
+   *
+   * @param items The items to register/ update.
+   * @return The number of items that were registered or updated, or 0 if a new recipe's key was
+   * already in use.
+   */
+  public static int updateItems(@NotNull Collection<? extends CustomItem> items) {
+
+    synchronized (lock) {
+
+      WorkingCopy newItems = new WorkingCopy(snapshot);
+      int updated = 0;
+
+      for (CustomItem item : items) {
+        if (item != null && update(newItems, item)) {
+          updated++;
+        }
+      }
+
+      if (updated > 0 && !commit(newItems)) {
+        return 0;
+      }
+
+      return updated;
+
+    }
 
   }
 
   /**
-   * Gets the custom item with the given customId.
+   * Registers every given custom item, or none of them. Every id is checked before anything is
+   * registered, the recipes are added in one pass, and the registry is only rebuilt once.
    *
-   * @param key The customId of the item to get.
-   * @return The custom item with the given customId, or null if none exists.
+   * @param items The custom items to register.
+   * @return True if all the items were registered, false if none were.
+   * @see #registerItem(CustomItem)
+   */
+  public static boolean registerAll(@NotNull Collection<? extends CustomItem> items) {
+    return batch(batch -> items.forEach(batch::register));
+  }
+
+  /**
+   * Applies a set of registry changes together. The changes are checked first, and if any of them
+   * would fail, none of them are applied. Otherwise, recipes are updated in one pass and the
+   * registry is only rebuilt once.
+   *
+   * <pre>{@code
+   * ItemRegistry.batch(batch -> {
+   *   batch.unregister("old_item");
+   *   batch.register(new NewItem());
+   * });
+   * }</pre>
+   *
+   * @param changes Makes the changes to the given {@link Batch}.
+   * @return True if all the changes were applied, false if none were.
+   */
+  public static boolean batch(@NotNull Consumer<Batch> changes) {
+
+    synchronized (lock) {
+
+      Batch batch = new Batch(new WorkingCopy(snapshot));
+      changes.accept(batch);
+
+      if (batch.failed) {
+        return false;
+      }
+
+      return commit(batch.copy);
+
+    }
+
+  }
+
+  /**
+   * Gets the custom item with the given customId. The id can also be prefixed with the namespace of
+   * the item's owner plugin, like {@code plugin:item}, to pick between items from different plugins
+   * that share an id. A key with a colon that isn't a registered namespaced id is looked up as a
+   * custom id.
+   *
+   * @param key The customId or namespaced id of the item to get.
+   * @return The custom item with the given id, or null if none exists.
    */
   @Nullable
   @Contract("null -> null")
@@ -188,7 +524,519 @@ public class ItemRegistry {
       return null;
     }
 
-    return map.get(key);
+    RegistrySnapshot current = snapshot;
+
+    if (key.indexOf(':') < 0) {
+      return current.items.get(key);
+    }
+
+    NamespacedKey namespacedKey = NamespacedKey.fromString(key.toLowerCase(Locale.ROOT));
+    CustomItem item = namespacedKey == null ? null : current.byKey.get(namespacedKey);
+
+    //Custom ids may contain a colon themselves
+    return item != null ? item : current.items.get(key);
+
+  }
+
+  /**
+   * Gets the custom item with the given namespaced id.
+   *
+   * @param key The namespaced id of the item to get.
+   * @return The custom item with the given id, or null if none exists.
+   * @see CustomItem#namespacedId()
+   */
+  @Nullable
+  @Contract("null -> null")
+  public static CustomItem findCustomItem(NamespacedKey key) {
+    return key == null ? null : snapshot.byKey.get(key);
+  }
+
+  @Nullable
+  private static CustomItem identify(@NotNull RegistrySnapshot current, ItemStack item) {
+
+    if (item == null) {
+      return null;
+    }
+
+    PersistentDataContainer dataContainer = item.hasItemMeta()
+        ? item.getItemMeta().getPersistentDataContainer() : null;
+
+    for (int i = 0; dataContainer != null && i < current.namespaces.length; i++) {
+
+      RegistrySnapshot.Namespace namespace = current.namespaces[i];
+
+      String id = dataContainer.get(namespace.idKey(), PersistentDataType.STRING);
+
+      if (id == null) {
+        continue;
+      }
+
+      CustomItem customItem = namespace.items().get(id);
+
+      if (customItem == null || RegistrySnapshot.hasCustomType(customItem)) {
+        continue;
+      }
+
+      if (customItem.customIdKey().equals(namespace.idKey())
+          && customItem.baseMaterial() == item.getType()) {
+        return customItem;
+      }
+
+    }
+
+    //Items that override isType decide for themselves
+    for (CustomItem customItem : current.customTypes) {
+      if (customItem.isType(item)) {
+        return customItem;
+      }
+    }
+
+    return null;
+
+  }
+
+  /**
+   * Adds an item to a working copy of the registry.
+   */
+  private static boolean register(@NotNull WorkingCopy copy, @NotNull CustomItem item) {
+
+    final NamespacedKey key = namespacedId(item);
+
+    if (key == null || copy.items.containsKey(key)) {
+      return false;
+    }
+
+    copy.items.put(key, item);
+    copy.changed.add(key);
+
+    return true;
+
+  }
+
+  /**
+   * Removes an item from a working copy of the registry.
+   */
+  private static boolean unregister(@NotNull WorkingCopy copy, @NotNull CustomItem item) {
+
+    final NamespacedKey key = namespacedId(item);
+
+    if (key == null || !copy.items.containsKey(key)) {
+      return false;
+    }
+
+    copy.items.remove(key);
+    copy.changed.add(key);
+
+    return true;
+
+  }
+
+  /**
+   * Registers or replaces an item in a working copy of the registry.
+   */
+  private static boolean update(@NotNull WorkingCopy copy, @NotNull CustomItem item) {
+
+    final NamespacedKey key = namespacedId(item);
+    final CustomItem existing = key == null ? null : copy.items.get(key);
+
+    if (existing != null && !unregister(copy, existing)) {
+      return false;
+    }
+
+    return register(copy, item);
+
+  }
+
+  /**
+   * Gets the namespaced id of an item, or null if the item's id is blank or an overridden
+   * {@link CustomItem#namespacedId()} throws. The failure is logged, since the item won't be
+   * registered.
+   */
+  @Nullable
+  private static NamespacedKey namespacedId(@NotNull CustomItem item) {
+
+    if (item.customId().isBlank()) {
+      return null;
+    }
+
+    try {
+      return item.namespacedId();
+    } catch (IllegalArgumentException e) {
+      GreenPandaCore.getCore().getLogger().log(Level.WARNING,
+          "Could not register item " + item.customId() + ", its namespaced id is invalid", e);
+      return null;
+    }
+
+  }
+
+  /**
+   * Publishes a working copy of the registry as the new snapshot. Recipes of craftable items that
+   * were removed or replaced are removed first, then recipes of new items are added in one pass.
+   * An item that is updated with the same instance counts as both, so its recipe is rebuilt. New
+   * items are given a handle, and online players are indexed again by {@link PlayerItemIndex}. Must
+   * hold the lock.
+   *
+   * <p>Nothing is changed if a new recipe's key is already used by another recipe. If changing the
+   * recipes fails part way, the recipes that were already changed are put back before the failure
+   * is rethrown.
+   *
+   * @return True if the snapshot was published, false if a recipe key was already in use.
+   */
+  private static boolean commit(@NotNull WorkingCopy copy) {
+
+    final long start = System.nanoTime();
+    final RegistrySnapshot current = snapshot;
+
+    final List<Craftable> removed = new ArrayList<>();
+    final List<Craftable> added = new ArrayList<>();
+
+    for (NamespacedKey key : copy.changed) {
+
+      if (current.byKey.get(key) instanceof Craftable craftable) {
+        removed.add(craftable);
+      }
+
+      if (copy.items.get(key) instanceof Craftable craftable) {
+        added.add(craftable);
+      }
+
+    }
+
+    if (!recipeKeysFree(removed, added)) {
+      return false;
+    }
+
+    final List<Recipe> removedRecipes = new ArrayList<>(removed.size());
+    final List<Craftable> addedRecipes = new ArrayList<>(added.size());
+
+    try {
+
+      for (Craftable craftable : removed) {
+
+        Server server = craftable.getOwnerPlugin().getServer();
+        Recipe recipe = server.getRecipe(craftable.namespacedKey());
+
+        if (server.removeRecipe(craftable.namespacedKey()) && recipe != null) {
+          removedRecipes.add(recipe);
+        }
+
+      }
+
+      for (Craftable craftable : added) {
+
+        if (!craftable.getOwnerPlugin().getServer().addRecipe(craftable.recipe())) {
+          throw new IllegalStateException("Could not add recipe " + craftable.namespacedKey());
+        }
+
+        addedRecipes.add(craftable);
+
+      }
+
+      snapshot = new RegistrySnapshot(copy.items, handles, current, copy.changed);
+
+    } catch (RuntimeException e) {
+      rollBackRecipes(removedRecipes, addedRecipes);
+      throw e;
+    }
+
+
+    for (CapabilityBinding binding : capabilityListeners) {
+      binding.update(snapshot);
+    }
+
+    for (NamespacedKey key : copy.changed) {
+      if (copy.items.containsKey(key)) {
+        PlayerItemIndex.reindexAll();
+        break;
+      }
+    }
+
+    Metrics.REGISTRY_CHANGE.recordSince(start);
+
+    return true;
+
+  }
+
+  /**
+   * Checks that every new recipe has its own key, and that the key isn't used by a recipe that will
+   * still be there once the old recipes are removed. Logs the first clash.
+   */
+  private static boolean recipeKeysFree(@NotNull List<Craftable> removed,
+      @NotNull List<Craftable> added) {
+
+    if (added.isEmpty()) {
+      return true;
+    }
+
+    final Set<NamespacedKey> removedKeys = new HashSet<>();
+    final Set<NamespacedKey> addedKeys = new HashSet<>();
+
+    for (Craftable craftable : removed) {
+      removedKeys.add(craftable.namespacedKey());
+    }
+
+    for (Craftable craftable : added) {
+
+      NamespacedKey key = craftable.namespacedKey();
+      boolean inUse = !removedKeys.contains(key)
+          && craftable.getOwnerPlugin().getServer().getRecipe(key) != null;
+
+      if (!addedKeys.add(key) || inUse) {
+        GreenPandaCore.getCore().getLogger().warning(
+            "Could not register item " + craftable.customId() + ", recipe " + key
+                + " is already in use");
+        return false;
+      }
+
+    }
+
+    return true;
+
+  }
+
+  /**
+   * Puts back the recipes changed by a failed commit. Failures here are logged rather than thrown,
+   * so they don't hide the original failure.
+   */
+  private static void rollBackRecipes(@NotNull List<Recipe> removed,
+      @NotNull List<Craftable> added) {
+
+    for (Craftable craftable : added) {
+      try {
+        craftable.getOwnerPlugin().getServer().removeRecipe(craftable.namespacedKey());
+      } catch (RuntimeException e) {
+        GreenPandaCore.getCore().getLogger().log(Level.WARNING,
+            "Could not roll back recipe " + craftable.namespacedKey(), e);
+      }
+    }
+
+    for (Recipe recipe : removed) {
+      try {
+        GreenPandaCore.getCore().getServer().addRecipe(recipe);
+      } catch (RuntimeException e) {
+        GreenPandaCore.getCore().getLogger().log(Level.WARNING,
+            "Could not roll back recipe " + recipe, e);
+      }
+    }
+
+  }
+
+  /**
+   * A working copy of the registry, along with the keys that were registered, unregistered or
+   * updated in it. Only used while holding the lock.
+   */
+  private static final class WorkingCopy {
+
+    private final Map<NamespacedKey, CustomItem> items;
+    private final Set<NamespacedKey> changed = new HashSet<>();
+
+    private WorkingCopy(@NotNull RegistrySnapshot current) {
+      this.items = new HashMap<>(current.byKey);
+    }
+
+  }
+
+  /**
+   * A listener that is registered while any item with its capability is. Whether it's needed is
+   * worked out while holding the lock, but it's only registered and unregistered on the global
+   * thread, since the registry can change on any thread.
+   */
+  private static final class CapabilityBinding {
+
+    private final Class<? extends CustomItem> capability;
+    private final Listener listener;
+    private final Plugin plugin;
+
+    /**
+     * Whether the listener should be registered. Only changed while holding the lock.
+     */
+    private volatile boolean needed = false;
+
+    /**
+     * Whether the listener is registered. Only used on the global thread.
+     */
+    private boolean registered = false;
+
+    private CapabilityBinding(@NotNull Class<? extends CustomItem> capability,
+        @NotNull Listener listener, @NotNull Plugin plugin) {
+      this.capability = capability;
+      this.listener = listener;
+      this.plugin = plugin;
+    }
+
+    /**
+     * Schedules the listener to be registered or unregistered to match the given snapshot.
+     */
+    private void update(@NotNull RegistrySnapshot current) {
+
+      boolean nowNeeded = !current.filter(capability).isEmpty() && plugin.isEnabled();
+
+      if (nowNeeded == needed) {
+        return;
+      }
+
+      needed = nowNeeded;
+
+      GreenPandaCore core = GreenPandaCore.getCore();
+
+      if (core != null && core.isEnabled()) {
+        TaskScheduler.runGlobal(this::apply);
+      } else {
+        apply();
+      }
+
+    }
+
+    /**
+     * Registers or unregisters the listener, if it isn't already. Only the latest state is
+     * applied, so a listener that is added and removed again before this runs is never registered.
+     */
+    private void apply() {
+
+      boolean register = needed && plugin.isEnabled();
+
+      if (register == registered) {
+        return;
+      }
+
+      registered = register;
+
+      if (register) {
+        plugin.getServer().getPluginManager().registerEvents(listener, plugin);
+
+        if (listener instanceof CapabilityListener capabilityListener) {
+          capabilityListener.onRegister();
+        }
+      } else {
+        HandlerList.unregisterAll(listener);
+
+        if (listener instanceof CapabilityListener capabilityListener) {
+          capabilityListener.onUnregister();
+        }
+      }
+
+    }
+
+  }
+
+  /**
+   * A set of registry changes that are applied together by {@link #batch(Consumer)}. Each change
+   * is checked against the registry as it would be after the earlier changes, and if any of them
+   * fails, none of them are applied.
+   */
+  public static final class Batch {
+
+    private final WorkingCopy copy;
+    private boolean failed = false;
+
+    private Batch(@NotNull WorkingCopy copy) {
+      this.copy = copy;
+    }
+
+    /**
+     * Registers the given custom item as part of this batch.
+     *
+     * @param item The custom item to register.
+     * @return True if the item can be registered, false otherwise.
+     * @see ItemRegistry#registerItem(CustomItem)
+     */
+    @Contract("null -> false")
+    public boolean register(CustomItem item) {
+      return check(item != null && ItemRegistry.register(copy, item));
+    }
+
+    /**
+     * Removes the custom item with the given key as part of this batch.
+     *
+     * @param key The key of the custom item to remove, either a custom id or a namespaced id.
+     * @return True if the item can be removed, false otherwise.
+     * @see ItemRegistry#unregisterItem(String)
+     */
+    @Contract("null -> false")
+    public boolean unregister(String key) {
+
+      if (key == null || key.isBlank()) {
+        return check(false);
+      }
+
+      final CustomItem item = find(key);
+
+      return check(item != null && ItemRegistry.unregister(copy, item));
+
+    }
+
+    /**
+     * Removes the given custom item as part of this batch.
+     *
+     * @param item The item to remove.
+     * @return True if the item can be removed, false otherwise.
+     * @see ItemRegistry#unregisterItem(CustomItem)
+     */
+    @Contract("null -> false")
+    public boolean unregister(CustomItem item) {
+      return check(item != null && ItemRegistry.unregister(copy, item));
+    }
+
+    /**
+     * Registers or replaces the given custom item as part of this batch.
+     *
+     * @param item The item to register/ update.
+     * @return True if the item can be registered or updated, false otherwise.
+     * @see ItemRegistry#updateItem(CustomItem)
+     */
+    @Contract("null -> false")
+    public boolean update(CustomItem item) {
+      return check(item != null && ItemRegistry.update(copy, item));
+    }
+
+    /**
+     * Finds an item in this batch by custom id or namespaced id. If items from different plugins
+     * share the custom id, the one with the lowest handle is used, as in
+     * {@link ItemRegistry#getMap()}. A key with a colon that isn't a namespaced id in this batch is
+     * looked up as a custom id, as in {@link ItemRegistry#findCustomItem(String)}.
+     */
+    @Nullable
+    private CustomItem find(@NotNull String key) {
+
+      if (key.indexOf(':') >= 0) {
+
+        NamespacedKey namespacedKey = NamespacedKey.fromString(key.toLowerCase(Locale.ROOT));
+        CustomItem item = namespacedKey == null ? null : copy.items.get(namespacedKey);
+
+        if (item != null) {
+          return item;
+        }
+
+      }
+
+      CustomItem found = null;
+      int foundHandle = Integer.MAX_VALUE;
+
+      for (Map.Entry<NamespacedKey, CustomItem> entry : copy.items.entrySet()) {
+
+        if (!entry.getValue().customId().equals(key)) {
+          continue;
+        }
+
+        //Items added earlier in this batch don't have a handle yet
+        int handle = handles.get(entry.getKey());
+        handle = handle < 0 ? Integer.MAX_VALUE : handle;
+
+        if (found == null || handle < foundHandle) {
+          found = entry.getValue();
+          foundHandle = handle;
+        }
+
+      }
+
+      return found;
+
+    }
+
+    private boolean check(boolean success) {
+      failed |= !success;
+      return success;
+    }
 
   }
 
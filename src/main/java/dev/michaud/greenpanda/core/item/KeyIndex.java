@@ -0,0 +1,88 @@
+package dev.michaud.greenpanda.core.item;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * An immutable, sorted index of item ids. Prefix lookups binary search for the first match and read
+ * forward from there, so they cost time proportional to the number of matches instead of the
+ * number of ids. Ids are compared ignoring case, the same as Bukkit's tab completion.
+ */
+final class KeyIndex {
+
+  private final String[] keys;
+  private final List<String> view;
+
+  /**
+   * Builds an index of the given ids.
+   *
+   * @param keys The ids to index. The collection is copied.
+   */
+  KeyIndex(@NotNull Collection<String> keys) {
+    this.keys = keys.toArray(String[]::new);
+    Arrays.sort(this.keys, String.CASE_INSENSITIVE_ORDER);
+    this.view = Collections.unmodifiableList(Arrays.asList(this.keys));
+  }
+
+  /**
+   * Gets the ids that start with the given prefix, ignoring case.
+   *
+   * @param prefix The prefix to search for.
+   * @param limit  The maximum number of ids to return.
+   * @return The matching ids, in alphabetical order.
+   */
+  @NotNull List<String> withPrefix(@NotNull String prefix, int limit) {
+
+    if (limit <= 0) {
+      return List.of();
+    }
+
+    if (prefix.isEmpty()) {
+      return limit >= keys.length ? view : view.subList(0, limit);
+    }
+
+    List<String> result = new ArrayList<>();
+
+    for (int i = lowerBound(prefix); i < keys.length && result.size() < limit; i++) {
+
+      if (!keys[i].regionMatches(true, 0, prefix, 0, prefix.length())) {
+        break;
+      }
+
+      result.add(keys[i]);
+
+    }
+
+    return result;
+
+  }
+
+  /**
+   * Finds the index of the first id that is not less than the given prefix.
+   */
+  private int lowerBound(@NotNull String prefix) {
+
+    int low = 0;
+    int high = keys.length;
+
+    while (low < high) {
+
+      int mid = (low + high) >>> 1;
+
+      if (String.CASE_INSENSITIVE_ORDER.compare(keys[mid], prefix) < 0) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+
+    }
+
+    return low;
+
+  }
+
+}
\ No newline at end of file
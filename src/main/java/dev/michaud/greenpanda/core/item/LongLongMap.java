@@ -0,0 +1,184 @@
+package dev.michaud.greenpanda.core.item;
+
+import java.util.Arrays;
+
+/**
+ * A map from {@code long} keys to {@code long} values, using open addressing so lookups don't box
+ * or allocate. Keys must not be negative. Not thread safe.
+ */
+final class LongLongMap {
+
+  private static final long FREE = -1;
+
+  private long[] keys;
+  private long[] values;
+  private int size = 0;
+
+  /**
+   * Called for every entry by {@link #forEach(EntryConsumer)}.
+   */
+  @FunctionalInterface
+  interface EntryConsumer {
+
+    void accept(long key, long value);
+
+  }
+
+  LongLongMap() {
+    keys = new long[16];
+    values = new long[16];
+    Arrays.fill(keys, FREE);
+  }
+
+  /**
+   * Gets the value of a key.
+   *
+   * @param key          The key.
+   * @param defaultValue The value to return if the key isn't in the map.
+   * @return The value, or defaultValue if there is none.
+   */
+  long get(long key, long defaultValue) {
+
+    int index = indexOf(key);
+
+    return keys[index] == key ? values[index] : defaultValue;
+
+  }
+
+  /**
+   * Sets the value of a key.
+   *
+   * @param key   The key. Must not be negative.
+   * @param value The value.
+   */
+  void put(long key, long value) {
+
+    int index = indexOf(key);
+
+    if (keys[index] == key) {
+      values[index] = value;
+      return;
+    }
+
+    keys[index] = key;
+    values[index] = value;
+
+    //Keep the table at most half full
+    if (++size * 2 > keys.length) {
+      resize(keys.length * 2);
+    }
+
+  }
+
+  /**
+   * Removes a key from the map.
+   *
+   * @param key The key.
+   * @return True if the key was in the map.
+   */
+  boolean remove(long key) {
+
+    int index = indexOf(key);
+
+    if (keys[index] != key) {
+      return false;
+    }
+
+    int mask = keys.length - 1;
+
+    //Shift later entries of the probe sequence back, so lookups don't stop at the gap
+    for (int next = (index + 1) & mask; keys[next] != FREE; next = (next + 1) & mask) {
+
+      int home = slot(keys[next]);
+
+      if (((next - home) & mask) >= ((next - index) & mask)) {
+        keys[index] = keys[next];
+        values[index] = values[next];
+        index = next;
+      }
+
+    }
+
+    keys[index] = FREE;
+    size--;
+
+    return true;
+
+  }
+
+  /**
+   * Gets the number of entries.
+   *
+   * @return The size of the map.
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Removes every entry.
+   */
+  void clear() {
+    Arrays.fill(keys, FREE);
+    size = 0;
+  }
+
+  /**
+   * Calls the consumer with every entry, in no particular order. The map must not be changed
+   * until this returns.
+   *
+   * @param consumer The consumer.
+   */
+  void forEach(EntryConsumer consumer) {
+    for (int i = 0; i < keys.length; i++) {
+      if (keys[i] != FREE) {
+        consumer.accept(keys[i], values[i]);
+      }
+    }
+  }
+
+  /**
+   * Finds the index of a key, or the free index it would go in.
+   */
+  private int indexOf(long key) {
+
+    int mask = keys.length - 1;
+    int index = slot(key);
+
+    while (keys[index] != FREE && keys[index] != key) {
+      index = (index + 1) & mask;
+    }
+
+    return index;
+
+  }
+
+  private int slot(long key) {
+
+    //Mix the bits, since keys are usually two small packed ints
+    long hash = key * 0x9E3779B97F4A7C15L;
+
+    return (int) (hash ^ (hash >>> 32)) & (keys.length - 1);
+
+  }
+
+  private void resize(int capacity) {
+
+    long[] oldKeys = keys;
+    long[] oldValues = values;
+
+    keys = new long[capacity];
+    values = new long[capacity];
+    Arrays.fill(keys, FREE);
+
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != FREE) {
+        int index = indexOf(oldKeys[i]);
+        keys[index] = oldKeys[i];
+        values[index] = oldValues[i];
+      }
+    }
+
+  }
+
+}
\ No newline at end of file
@@ -0,0 +1,326 @@
+package dev.michaud.greenpanda.core.item;
+
+import dev.michaud.greenpanda.core.GreenPandaCore;
+import dev.michaud.greenpanda.core.util.TaskScheduler;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Keeps track of which custom items every online player has in their inventory, so checking if a
+ * player has an item doesn't need to look at every slot. Kept up to date one slot at a time by
+ * {@link dev.michaud.greenpanda.core.eventlistener.PlayerItemIndexListener}.
+ *
+ * <p>Counts are the total number of items across the player's inventory, armor and off hand
+ * slots. They are updated on the player's thread, so reads from other threads may be a tick
+ * behind. When items are registered or updated, every online player is indexed again on the next
+ * tick, so items registered after a player joined are counted too.</p>
+ */
+public class PlayerItemIndex {
+
+  /**
+   * The number of slots in a player inventory: 36 storage slots, 4 armor slots and the off hand.
+   */
+  private static final int SLOTS = 41;
+
+  private static final Map<UUID, Contents> players = new ConcurrentHashMap<>();
+
+  private static final List<ChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+  private static final AtomicBoolean reindexScheduled = new AtomicBoolean();
+
+  /**
+   * Called when the number of a custom item in a player's inventory changes.
+   */
+  @FunctionalInterface
+  public interface ChangeListener {
+
+    /**
+     * Called after the number of the item in the player's inventory changes.
+     *
+     * @param player   The player.
+     * @param item     The custom item.
+     * @param oldCount The number of the item the player had before.
+     * @param newCount The number of the item the player has now.
+     */
+    void onChange(@NotNull Player player, @NotNull CustomItem item, int oldCount, int newCount);
+
+  }
+
+  /**
+   * The custom items in one player's inventory.
+   */
+  private static final class Contents {
+
+    private final int[] slotHandles = new int[SLOTS];
+    private final int[] slotAmounts = new int[SLOTS];
+    private volatile int[] counts = new int[0];
+
+    private Contents() {
+      Arrays.fill(slotHandles, -1);
+    }
+
+  }
+
+  /**
+   * Checks if the player has at least one of the given item.
+   *
+   * @param player The player.
+   * @param item   The custom item.
+   * @return True if the player has the item in their inventory.
+   */
+  public static boolean has(@NotNull Player player, @NotNull CustomItem item) {
+    return count(player, item) > 0;
+  }
+
+  /**
+   * Checks if the player has at least one of the item with the given id.
+   *
+   * @param player The player.
+   * @param id     The custom id or namespaced id of the item.
+   * @return True if the player has the item in their inventory.
+   * @see ItemRegistry#findCustomItem(String)
+   */
+  public static boolean has(@NotNull Player player, @NotNull String id) {
+    return count(player, id) > 0;
+  }
+
+  /**
+   * Gets the number of the given item the player has.
+   *
+   * @param player The player.
+   * @param item   The custom item.
+   * @return The total amount of the item across the player's inventory.
+   */
+  public static int count(@NotNull Player player, @NotNull CustomItem item) {
+
+    Contents contents = players.get(player.getUniqueId());
+    int handle = ItemRegistry.getHandle(item);
+
+    if (contents == null || handle < 0) {
+      return 0;
+    }
+
+    return countOf(contents, handle);
+
+  }
+
+  /**
+   * Gets the number of the item with the given id the player has.
+   *
+   * @param player The player.
+   * @param id     The custom id or namespaced id of the item.
+   * @return The total amount of the item across the player's inventory.
+   * @see ItemRegistry#findCustomItem(String)
+   */
+  public static int count(@NotNull Player player, @NotNull String id) {
+
+    CustomItem item = ItemRegistry.findCustomItem(id);
+
+    return item == null ? 0 : count(player, item);
+
+  }
+
+  /**
+   * Adds a listener that is called whenever the number of a custom item in a player's inventory
+   * changes. Listeners are called on the player's thread.
+   *
+   * @param listener The listener to add.
+   */
+  public static void addListener(@NotNull ChangeListener listener) {
+    listeners.add(listener);
+  }
+
+  /**
+   * Removes a listener added with {@link #addListener(ChangeListener)}.
+   *
+   * @param listener The listener to remove.
+   */
+  public static void removeListener(@NotNull ChangeListener listener) {
+    listeners.remove(listener);
+  }
+
+  /**
+   * Indexes every slot of the player's inventory from scratch. Used when the player joins, so
+   * listeners aren't called.
+   *
+   * @param player The player.
+   */
+  public static void seed(@NotNull Player player) {
+
+    Contents contents = new Contents();
+    ItemStack[] items = player.getInventory().getContents();
+
+    for (int slot = 0; slot < Math.min(items.length, SLOTS); slot++) {
+      set(contents, slot, items[slot]);
+    }
+
+    players.put(player.getUniqueId(), contents);
+
+  }
+
+  /**
+   * Updates one slot of the player's inventory, and calls the listeners if a count changed.
+   *
+   * @param player The player.
+   * @param slot   The slot in the player's inventory.
+   * @param item   The new item in the slot.
+   */
+  public static void update(@NotNull Player player, int slot, @Nullable ItemStack item) {
+
+    Contents contents = players.get(player.getUniqueId());
+
+    if (contents == null || slot < 0 || slot >= SLOTS) {
+      return;
+    }
+
+    int oldHandle = contents.slotHandles[slot];
+    int oldCount = countOf(contents, oldHandle);
+
+    set(contents, slot, item);
+
+    int newHandle = contents.slotHandles[slot];
+
+    if (listeners.isEmpty()) {
+      return;
+    }
+
+    if (oldHandle >= 0) {
+      notify(player, oldHandle, oldCount, countOf(contents, oldHandle));
+    }
+
+    if (newHandle >= 0 && newHandle != oldHandle) {
+      int newCount = countOf(contents, newHandle);
+      notify(player, newHandle, newCount - contents.slotAmounts[slot], newCount);
+    }
+
+  }
+
+  /**
+   * Indexes every online player again on their own thread, and calls the listeners for counts that
+   * changed. Called by the {@link ItemRegistry} when items are registered or updated, since slots
+   * holding those items were indexed before the items existed. Calls made before the players are
+   * indexed again only index them once.
+   */
+  static void reindexAll() {
+
+    if (players.isEmpty() || !reindexScheduled.compareAndSet(false, true)) {
+      return;
+    }
+
+    GreenPandaCore core = GreenPandaCore.getCore();
+
+    if (core == null || !core.isEnabled()) {
+      reindexScheduled.set(false);
+      return;
+    }
+
+    TaskScheduler.runGlobal(() -> {
+
+      reindexScheduled.set(false);
+
+      for (Player player : Bukkit.getOnlinePlayers()) {
+        TaskScheduler.runForEntity(player, () -> reindex(player));
+      }
+
+    });
+
+  }
+
+  /**
+   * Removes the player from the index.
+   *
+   * @param player The player.
+   */
+  public static void remove(@NotNull Player player) {
+    players.remove(player.getUniqueId());
+  }
+
+  /**
+   * Indexes the player again, if they are still in the index, and calls the listeners for every
+   * count that changed. Must run on the player's thread.
+   */
+  private static void reindex(@NotNull Player player) {
+
+    Contents old = players.get(player.getUniqueId());
+
+    if (old == null || !player.isOnline()) {
+      return;
+    }
+
+    seed(player);
+
+    Contents contents = players.get(player.getUniqueId());
+
+    if (listeners.isEmpty() || contents == null) {
+      return;
+    }
+
+    int handles = Math.max(old.counts.length, contents.counts.length);
+
+    for (int handle = 0; handle < handles; handle++) {
+      notify(player, handle, countOf(old, handle), countOf(contents, handle));
+    }
+
+  }
+
+  private static void set(@NotNull Contents contents, int slot, @Nullable ItemStack item) {
+
+    CustomItem customItem = item == null || item.getType().isAir() ? null
+        : ItemRegistry.identify(item);
+    int handle = customItem == null ? -1 : ItemRegistry.getHandle(customItem);
+    int amount = handle < 0 ? 0 : item.getAmount();
+
+    int oldHandle = contents.slotHandles[slot];
+    int[] counts = contents.counts;
+
+    if (handle >= counts.length) {
+      counts = Arrays.copyOf(counts, handle + 1);
+    }
+
+    if (oldHandle >= 0) {
+      counts[oldHandle] -= contents.slotAmounts[slot];
+    }
+
+    if (handle >= 0) {
+      counts[handle] += amount;
+    }
+
+    contents.slotHandles[slot] = handle;
+    contents.slotAmounts[slot] = amount;
+    contents.counts = counts;
+
+  }
+
+  private static int countOf(@NotNull Contents contents, int handle) {
+
+    int[] counts = contents.counts;
+
+    return handle >= 0 && handle < counts.length ? counts[handle] : 0;
+
+  }
+
+  private static void notify(@NotNull Player player, int handle, int oldCount, int newCount) {
+
+    CustomItem item = ItemRegistry.byHandle(handle);
+
+    if (item == null || oldCount == newCount) {
+      return;
+    }
+
+    for (ChangeListener listener : listeners) {
+      listener.onChange(player, item, oldCount, newCount);
+    }
+
+  }
+
+}
\ No newline at end of file
@@ -0,0 +1,310 @@
+package dev.michaud.greenpanda.core.item;
+
+import dev.michaud.greenpanda.core.GreenPandaCore;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Stores serialized prototype stacks on disk, so items don't have to be built from scratch with
+ * {@link CustomItem#createItem()} on every startup. The file is read into memory when opened, and
+ * an entry is only deserialized the first time its item is made.
+ *
+ * <p>Each entry is stored with a hash of the item's definition: its class, the owner plugin's
+ * version and jar, and {@link CustomItem#definitionHash()}. If any of those
+ * change, the entry is ignored and the item is built again. Only items that override
+ * {@link CustomItem#definitionHash()} are cached, since the cache can't tell when anything else an
+ * item reads, like a config file, has changed.</p>
+ */
+final class PrototypeCache {
+
+  private static final int MAGIC = 0x47504331;
+
+  /**
+   * The largest file that is read. Prototypes are usually a few hundred bytes, so anything bigger
+   * than this isn't a cache this class wrote.
+   */
+  private static final long MAX_FILE_SIZE = 64L * 1024 * 1024;
+
+  /**
+   * The size of an entry with an empty key and no bytes: the key length, hash and entry length.
+   */
+  private static final int MIN_ENTRY_SIZE = Integer.BYTES + Long.BYTES + Integer.BYTES;
+
+  /**
+   * Whether each item class overrides {@link CustomItem#definitionHash()}.
+   */
+  private static final ClassValue<Boolean> CACHEABLE = new ClassValue<>() {
+    @Override
+    protected Boolean computeValue(@NotNull Class<?> type) {
+      try {
+        return type.getMethod("definitionHash").getDeclaringClass() != CustomItem.class;
+      } catch (NoSuchMethodException e) {
+        return false;
+      }
+    }
+  };
+
+  private final File file;
+  private final Map<String, Entry> entries = new HashMap<>();
+  private final Map<String, Built> built = new ConcurrentHashMap<>();
+
+  /**
+   * Prototypes built this session that have already been saved.
+   */
+  private final Map<String, Built> saved = new ConcurrentHashMap<>();
+
+  /**
+   * The contents of the file when it was opened. Entries point into this, and it's never changed.
+   */
+  private final byte @NotNull [] data;
+
+  /**
+   * Where an entry's bytes are in {@link #data}.
+   */
+  private record Entry(long hash, int offset, int length) {
+
+  }
+
+  /**
+   * A prototype that was built this session, and needs to be written on the next save.
+   */
+  private record Built(long hash, byte[] bytes) {
+
+  }
+
+  private PrototypeCache(@NotNull File file, byte @NotNull [] data) {
+    this.file = file;
+    this.data = data;
+  }
+
+  /**
+   * Opens the cache in the given file, reading the list of entries. If the file doesn't exist, is
+   * too big or is corrupt, the cache starts empty.
+   *
+   * @param file The cache file.
+   * @return The cache.
+   * @throws IOException If the file exists but can't be read.
+   */
+  static @NotNull PrototypeCache open(@NotNull File file) throws IOException {
+
+    if (!file.exists()) {
+      return new PrototypeCache(file, new byte[0]);
+    }
+
+    if (file.length() > MAX_FILE_SIZE) {
+      GreenPandaCore.getCore().getLogger().warning(
+          "Ignoring prototype cache " + file + ", it's larger than " + MAX_FILE_SIZE + " bytes");
+      return new PrototypeCache(file, new byte[0]);
+    }
+
+    byte[] data = Files.readAllBytes(file.toPath());
+    ByteBuffer buffer = ByteBuffer.wrap(data);
+    PrototypeCache cache = new PrototypeCache(file, data);
+
+    try {
+
+      if (buffer.getInt() != MAGIC) {
+        return new PrototypeCache(file, new byte[0]);
+      }
+
+      int count = buffer.getInt();
+
+      if (count < 0 || count > buffer.remaining() / MIN_ENTRY_SIZE) {
+        throw new IllegalStateException("Invalid entry count " + count);
+      }
+
+      for (int i = 0; i < count; i++) {
+
+        byte[] key = new byte[length(buffer)];
+        buffer.get(key);
+
+        long hash = buffer.getLong();
+        int length = length(buffer);
+
+        cache.entries.put(new String(key, StandardCharsets.UTF_8),
+            new Entry(hash, buffer.position(), length));
+        buffer.position(buffer.position() + length);
+
+      }
+
+    } catch (RuntimeException e) {
+      //Truncated or corrupt, so start again
+      return new PrototypeCache(file, new byte[0]);
+    }
+
+    return cache;
+
+  }
+
+  /**
+   * Reads a length, and checks that that many bytes are left in the buffer before anything is
+   * allocated for them.
+   */
+  private static int length(@NotNull ByteBuffer buffer) {
+
+    int length = buffer.getInt();
+
+    if (length < 0 || length > buffer.remaining()) {
+      throw new IllegalStateException("Invalid length " + length);
+    }
+
+    return length;
+
+  }
+
+  /**
+   * Gets the prototype of the given item from the cache, or builds it with
+   * {@link CustomItem#createItem()} if it isn't cached or its definition changed. Items that don't
+   * override {@link CustomItem#definitionHash()} are always built.
+   *
+   * @param item The item.
+   * @return The prototype.
+   */
+  @NotNull ItemStack get(@NotNull CustomItem item) {
+
+    if (!CACHEABLE.get(item.getClass())) {
+      return item.createItem();
+    }
+
+    String key = item.namespacedId().toString();
+    long hash = definitionHash(item);
+    byte[] bytes = read(key, hash);
+
+    if (bytes != null) {
+      try {
+        return ItemStack.deserializeBytes(bytes);
+      } catch (RuntimeException e) {
+        //Fall through and build it again
+      }
+    }
+
+    ItemStack prototype = item.createItem();
+    built.put(key, new Built(hash, prototype.serializeAsBytes()));
+
+    return prototype;
+
+  }
+
+  /**
+   * Writes the cache back to its file, if any prototypes were built this session. Entries that
+   * weren't used are kept, since their plugin might just not be loaded right now. The file isn't
+   * held open, so it can be replaced on any platform.
+   *
+   * @throws IOException If the file can't be written.
+   */
+  synchronized void save() throws IOException {
+
+    if (built.isEmpty()) {
+      return;
+    }
+
+    File parent = file.getAbsoluteFile().getParentFile();
+
+    if (parent != null && !parent.exists() && !parent.mkdirs()) {
+      throw new IOException("Could not create " + parent);
+    }
+
+    Map<String, Built> all = new HashMap<>();
+
+    entries.forEach((key, entry) -> all.put(key, new Built(entry.hash(),
+        Arrays.copyOfRange(data, entry.offset(), entry.offset() + entry.length()))));
+    all.putAll(saved);
+    all.putAll(built);
+
+    File temp = new File(parent, file.getName() + ".tmp");
+
+    try (DataOutputStream out = new DataOutputStream(
+        new BufferedOutputStream(new FileOutputStream(temp)))) {
+
+      out.writeInt(MAGIC);
+      out.writeInt(all.size());
+
+      for (Map.Entry<String, Built> entry : all.entrySet()) {
+
+        byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+
+        out.writeInt(key.length);
+        out.write(key);
+        out.writeLong(entry.getValue().hash());
+        out.writeInt(entry.getValue().bytes().length);
+        out.write(entry.getValue().bytes());
+
+      }
+
+    }
+
+    Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    saved.putAll(built);
+    built.clear();
+
+  }
+
+  /**
+   * Gets the bytes of the cached entry with the given key, or null if there is none or its hash
+   * doesn't match.
+   */
+  private @Nullable byte[] read(@NotNull String key, long hash) {
+
+    Entry entry = entries.get(key);
+
+    if (entry != null && entry.hash() == hash) {
+      return Arrays.copyOfRange(data, entry.offset(), entry.offset() + entry.length());
+    }
+
+    Built savedEntry = saved.get(key);
+
+    return savedEntry != null && savedEntry.hash() == hash ? savedEntry.bytes() : null;
+
+  }
+
+  /**
+   * Hashes everything the prototype of an item is built from.
+   */
+  private static long definitionHash(@NotNull CustomItem item) {
+
+    StringBuilder definition = new StringBuilder()
+        .append(item.getClass().getName()).append('|')
+        .append(item.getOwnerPlugin().getDescription().getVersion()).append('|')
+        .append(item.definitionHash());
+
+    CodeSource source = item.getClass().getProtectionDomain().getCodeSource();
+
+    if (source != null && source.getLocation() != null) {
+      try {
+        File jar = new File(source.getLocation().toURI());
+        definition.append('|').append(jar.lastModified()).append('|').append(jar.length());
+      } catch (URISyntaxException | IllegalArgumentException e) {
+        GreenPandaCore.getCore().getLogger().log(Level.FINE, "Could not find jar of " + item, e);
+      }
+    }
+
+    //64-bit FNV-1a
+    long hash = 0xcbf29ce484222325L;
+
+    for (int i = 0; i < definition.length(); i++) {
+      hash ^= definition.charAt(i);
+      hash *= 0x100000001b3L;
+    }
+
+    return hash;
+
+  }
+
+}
\ No newline at end of file
@@ -0,0 +1,316 @@
+package dev.michaud.greenpanda.core.item;
+
+import dev.michaud.greenpanda.core.metrics.Metrics;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * An immutable copy of the {@link ItemRegistry} along with the lookup tables derived from it. A new
+ * snapshot is built for every change, so readers on any thread always see a consistent registry.
+ */
+final class RegistrySnapshot {
+
+  static final NamespacedKey[] NO_KEYS = new NamespacedKey[0];
+
+  /**
+   * Whether each item class overrides {@link CustomItem#isType(ItemStack)}.
+   */
+  private static final ClassValue<Boolean> CUSTOM_TYPE = new ClassValue<>() {
+    @Override
+    protected Boolean computeValue(@NotNull Class<?> type) {
+      try {
+        return type.getMethod("isType", ItemStack.class).getDeclaringClass() != CustomItem.class;
+      } catch (NoSuchMethodException e) {
+        return false;
+      }
+    }
+  };
+
+  static final RegistrySnapshot EMPTY = new RegistrySnapshot(Map.of(), new HandleTable(), null,
+      Set.of());
+
+  /**
+   * Every registered item, keyed by its namespaced id.
+   */
+  final Map<NamespacedKey, CustomItem> byKey;
+
+  /**
+   * Every registered item, keyed by custom id. If items from different plugins share an id, the
+   * one registered first is used.
+   */
+  final Map<String, CustomItem> items;
+
+  /**
+   * Every registered item, indexed by handle. Null where the item with that handle isn't
+   * registered.
+   */
+  final CustomItem[] byHandle;
+
+  /**
+   * The {@link Metrics} call counters of every registered item, indexed by handle. Looked up once
+   * here, so counting a call doesn't need a lookup by id.
+   */
+  final Metrics.ItemCalls[] calls;
+
+  /**
+   * The handle of every registered item instance, compared by identity. Other instances are looked
+   * up by their namespaced id instead, see {@link #handle(CustomItem)}.
+   */
+  private final Map<CustomItem, Integer> handles = new IdentityHashMap<>();
+
+  /**
+   * The handle of every registered item, keyed by namespaced id.
+   */
+  private final Map<NamespacedKey, Integer> keyHandles = new HashMap<>();
+
+  /**
+   * Every custom id, sorted for prefix lookups.
+   */
+  final KeyIndex ids;
+
+  /**
+   * Every custom id prefixed with its namespace, like {@code plugin:item}, sorted for prefix
+   * lookups.
+   */
+  final KeyIndex namespacedIds;
+
+  /**
+   * The result of {@link ItemRegistry#getValues(Class)} for every class type that has been asked
+   * for. The common capabilities are filled in up front, any others the first time they are used.
+   */
+  final Map<Class<?>, List<?>> capabilities = new ConcurrentHashMap<>();
+
+  /**
+   * The recipe keys unlocked by each {@link Material}, built from
+   * {@link RecipeUnlockable#recipeRequirement()}.
+   */
+  final Map<Material, NamespacedKey[]> unlocks = new EnumMap<>(Material.class);
+
+  /**
+   * The base material of every {@link AnvilRepairable}. Used to skip reading the item meta of
+   * items that can't have an anvil recipe.
+   */
+  final Set<Material> anvilMaterials = EnumSet.noneOf(Material.class);
+
+  /**
+   * Every item that overrides {@link CustomItem#isType(ItemStack)}. Their stacks may not match by
+   * id and base material alone, so {@link ItemRegistry#identify(ItemStack)} asks them directly.
+   */
+  final List<CustomItem> customTypes;
+
+  /**
+   * Whether any {@link AnvilRepairable} overrides {@link CustomItem#isType(ItemStack)}, in which
+   * case {@link #anvilMaterials} can't be used to reject stacks.
+   */
+  final boolean customAnvilTypes;
+
+  /**
+   * The item data keys of every plugin that has registered an item, along with its items.
+   */
+  final Namespace[] namespaces;
+
+  /**
+   * The prototype {@link ItemStack} of each registered item, indexed by handle and built lazily by
+   * {@link ItemRegistry#prototype(CustomItem)}. These are never handed out directly, only cloned.
+   */
+  final AtomicReferenceArray<ItemStack> prototypes;
+
+  /**
+   * The key a plugin's items store their id under, and the items of that plugin by custom id.
+   */
+  record Namespace(@NotNull NamespacedKey idKey, @NotNull Map<String, CustomItem> items) {
+
+  }
+
+  /**
+   * Builds a snapshot of the given items.
+   *
+   * @param items    The registered items, keyed by namespaced id. The map is copied.
+   * @param table    The handle table. New items are given a handle.
+   * @param previous The snapshot being replaced, used to keep prototypes of unchanged items.
+   * @param changed  The keys that were registered, unregistered or updated since the previous
+   *                 snapshot. Their prototypes are dropped, even if the instance is the same.
+   */
+  RegistrySnapshot(@NotNull Map<NamespacedKey, CustomItem> items, @NotNull HandleTable table,
+      @Nullable RegistrySnapshot previous, @NotNull Set<NamespacedKey> changed) {
+
+    this.byKey = Collections.unmodifiableMap(new HashMap<>(items));
+
+    items.forEach((key, item) -> {
+      int handle = table.assign(key);
+      handles.put(item, handle);
+      keyHandles.put(key, handle);
+    });
+
+    this.byHandle = new CustomItem[table.size()];
+    this.calls = new Metrics.ItemCalls[byHandle.length];
+
+    handles.forEach((item, handle) -> byHandle[handle] = item);
+    items.forEach((key, item) -> calls[handles.get(item)] = Metrics.itemCalls(key.toString()));
+
+    Map<String, CustomItem> byId = new HashMap<>();
+    Map<NamespacedKey, Map<String, CustomItem>> byIdKey = new LinkedHashMap<>();
+
+    for (CustomItem item : byHandle) {
+
+      if (item == null) {
+        continue;
+      }
+
+      byId.putIfAbsent(item.customId(), item);
+      byIdKey.computeIfAbsent(item.customIdKey(), k -> new HashMap<>())
+          .put(item.customId(), item);
+
+    }
+
+    this.items = Collections.unmodifiableMap(byId);
+
+    namespaces = byIdKey.entrySet().stream()
+        .map(entry -> new Namespace(entry.getKey(),
+            Collections.unmodifiableMap(entry.getValue())))
+        .toArray(Namespace[]::new);
+
+    ids = new KeyIndex(this.items.keySet());
+    namespacedIds = new KeyIndex(byKey.keySet().stream().map(NamespacedKey::toString).toList());
+
+    filter(Craftable.class);
+    filter(AnvilRepairable.class);
+
+    for (RecipeUnlockable unlockable : filter(RecipeUnlockable.class)) {
+
+      Material material = unlockable.recipeRequirement();
+      NamespacedKey[] keys = unlocks.getOrDefault(material, NO_KEYS);
+
+      NamespacedKey[] newKeys = Arrays.copyOf(keys, keys.length + 1);
+      newKeys[keys.length] = unlockable.namespacedKey();
+
+      unlocks.put(material, newKeys);
+
+    }
+
+    for (AnvilRepairable repairable : filter(AnvilRepairable.class)) {
+      anvilMaterials.add(repairable.baseMaterial());
+    }
+
+    customTypes = Arrays.stream(byHandle)
+        .filter(item -> item != null && hasCustomType(item))
+        .toList();
+    customAnvilTypes = customTypes.stream().anyMatch(AnvilRepairable.class::isInstance);
+
+    prototypes = new AtomicReferenceArray<>(byHandle.length);
+
+    if (previous != null) {
+      for (int i = 0; i < previous.prototypes.length(); i++) {
+
+        ItemStack prototype = previous.prototypes.get(i);
+
+        if (prototype != null && previous.byHandle[i] == byHandle[i]) {
+          prototypes.set(i, prototype);
+        }
+
+      }
+
+      for (NamespacedKey key : changed) {
+
+        int handle = table.get(key);
+
+        if (handle >= 0 && handle < prototypes.length()) {
+          prototypes.set(handle, null);
+        }
+
+      }
+    }
+
+  }
+
+  /**
+   * Gets the registered item with the given handle.
+   *
+   * @param handle The handle.
+   * @return The item, or null if no registered item has that handle.
+   */
+  @Nullable CustomItem byHandle(int handle) {
+    return handle >= 0 && handle < byHandle.length ? byHandle[handle] : null;
+  }
+
+  /**
+   * Gets the handle of the given item. The registered instance is found by identity. Any other
+   * instance, like a second {@code new MyItem()}, is found by its namespaced id, as long as it's
+   * the same class as the registered item.
+   *
+   * @param item The item.
+   * @return The handle, or -1 if no item with that id and class is registered.
+   */
+  int handle(@NotNull CustomItem item) {
+
+    Integer handle = handles.get(item);
+
+    if (handle != null) {
+      return handle;
+    }
+
+    if (keyHandles.isEmpty() || item.customId().isBlank()) {
+      return -1;
+    }
+
+    try {
+      handle = keyHandles.get(item.namespacedId());
+    } catch (IllegalArgumentException e) {
+      return -1;
+    }
+
+    return handle != null && byHandle[handle].getClass() == item.getClass() ? handle : -1;
+
+  }
+
+  /**
+   * Checks if the item overrides {@link CustomItem#isType(ItemStack)}.
+   *
+   * @param item The item.
+   * @return True if the item decides its own type.
+   */
+  static boolean hasCustomType(@NotNull CustomItem item) {
+    return CUSTOM_TYPE.get(item.getClass());
+  }
+
+  /**
+   * Gets every item in this snapshot with the given class type.
+   *
+   * @param type The class type to filter by.
+   * @return An unmodifiable list of the items.
+   */
+  @SuppressWarnings("unchecked")
+  <A extends CustomItem> @NotNull List<A> filter(@NotNull Class<A> type) {
+
+    List<?> values = capabilities.get(type);
+
+    if (values == null) {
+      values = byKey.values().stream()
+          .filter(type::isInstance)
+          .map(type::cast)
+          .toList();
+
+      List<?> existing = capabilities.putIfAbsent(type, values);
+      values = existing == null ? values : existing;
+    }
+
+    return (List<A>) values;
+
+  }
+
+}
\ No newline at end of file
@@ -0,0 +1,63 @@
+package dev.michaud.greenpanda.core.metrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Writes the metrics to a plain text file, replacing it on every export.
+ */
+public class FileMetricsExporter implements MetricsExporter {
+
+  private final File file;
+
+  /**
+   * Creates an exporter that writes to the given file.
+   *
+   * @param file The file to write to.
+   */
+  public FileMetricsExporter(@NotNull File file) {
+    this.file = file;
+  }
+
+  @Override
+  public void export(@NotNull List<Timer.Snapshot> timers, @NotNull Map<String, Long> counters)
+      throws IOException {
+
+    File parent = file.getAbsoluteFile().getParentFile();
+
+    if (parent != null && !parent.exists() && !parent.mkdirs()) {
+      throw new IOException("Could not create " + parent);
+    }
+
+    File temp = new File(parent, file.getName() + ".tmp");
+
+    try (PrintWriter writer = new PrintWriter(temp, StandardCharsets.UTF_8)) {
+
+      writer.println("# GreenPandaCore metrics, " + Instant.now());
+      writer.println("# name count mean_us p50_us p99_us max_us");
+
+      for (Timer.Snapshot timer : timers) {
+        writer.printf("%s %d %.1f %.1f %.1f %.1f%n", timer.name(), timer.count(),
+            timer.meanNanos() / 1000.0, timer.p50Nanos() / 1000.0, timer.p99Nanos() / 1000.0,
+            timer.maxNanos() / 1000.0);
+      }
+
+      writer.println("# name count");
+
+      counters.forEach((name, value) -> writer.println(name + " " + value));
+
+    }
+
+    Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+  }
+
+}
\ No newline at end of file
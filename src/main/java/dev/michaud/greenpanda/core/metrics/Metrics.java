@@ -0,0 +1,216 @@
+package dev.michaud.greenpanda.core.metrics;
+
+import dev.michaud.greenpanda.core.GreenPandaCore;
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Counters and timers for the core's hot paths. Recording is lock-free and doesn't allocate, so
+ * these are always on. View them with {@code /gpcore stats}, or export them with a
+ * {@link MetricsExporter}.
+ */
+public class Metrics {
+
+  private static final Map<String, Timer> timers = new ConcurrentHashMap<>();
+  private static final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+  private static final Map<String, ItemCalls> itemCalls = new ConcurrentHashMap<>();
+  private static final List<MetricsExporter> exporters = new CopyOnWriteArrayList<>();
+
+  public static final Timer PREPARE_ANVIL = timer("listener.prepare_anvil");
+  public static final Timer PICKUP_ITEM = timer("listener.pickup_item");
+  public static final Timer INVENTORY_CLICK = timer("listener.inventory_click");
+  public static final Timer GIVE_ITEM = timer("command.giveitem");
+  public static final Timer REGISTRY_CHANGE = timer("registry.change");
+
+  /**
+   * Gets the timer with the given name, creating it if needed. Keep the returned timer instead of
+   * looking it up on every use.
+   *
+   * @param name The name of the timer.
+   * @return The timer.
+   */
+  public static @NotNull Timer timer(@NotNull String name) {
+    return timers.computeIfAbsent(name, Timer::new);
+  }
+
+  /**
+   * Gets the counter with the given name, creating it if needed. Keep the returned counter instead
+   * of looking it up on every use.
+   *
+   * @param name The name of the counter.
+   * @return The counter.
+   */
+  public static @NotNull LongAdder counter(@NotNull String name) {
+    return counters.computeIfAbsent(name, n -> new LongAdder());
+  }
+
+  /**
+   * Gets the call counters of the custom item with the given namespaced id, creating them if
+   * needed. The registry looks these up once for each registered item, so unregistered items never
+   * get counters.
+   *
+   * @param id The namespaced id of the item.
+   * @return The call counters.
+   */
+  public static @NotNull ItemCalls itemCalls(@NotNull String id) {
+    return itemCalls.computeIfAbsent(id, i -> new ItemCalls(new LongAdder(), new LongAdder()));
+  }
+
+  /**
+   * Takes a snapshot of every timer, sorted by name.
+   *
+   * @return The timer snapshots.
+   */
+  public static @NotNull List<Timer.Snapshot> timerSnapshots() {
+    return new TreeMap<>(timers).values().stream().map(Timer::snapshot).toList();
+  }
+
+  /**
+   * Gets the value of every counter, including the call counters of every item, sorted by name.
+   *
+   * @return The counter values, keyed by name.
+   */
+  public static @NotNull Map<String, Long> counterValues() {
+
+    Map<String, Long> values = namedCounterValues();
+
+    itemCalls.forEach((id, calls) -> {
+      values.put("item." + id + ".make_item", calls.makeItem().sum());
+      values.put("item." + id + ".is_type", calls.isType().sum());
+    });
+
+    return values;
+
+  }
+
+  /**
+   * Gets the value of every counter made with {@link #counter(String)}, sorted by name. Item call
+   * counters aren't included.
+   *
+   * @return The counter values, keyed by name.
+   */
+  public static @NotNull Map<String, Long> namedCounterValues() {
+
+    Map<String, Long> values = new TreeMap<>();
+    counters.forEach((name, counter) -> values.put(name, counter.sum()));
+
+    return values;
+
+  }
+
+  /**
+   * Gets the items with the most calls. Items that haven't been called are left out.
+   *
+   * @param limit The maximum number of items to return.
+   * @return The call counts of the busiest items, busiest first.
+   */
+  public static @NotNull List<ItemCallCounts> busiestItems(int limit) {
+    return itemCalls.entrySet().stream()
+        .map(entry -> new ItemCallCounts(entry.getKey(), entry.getValue().makeItem().sum(),
+            entry.getValue().isType().sum()))
+        .filter(counts -> counts.total() > 0)
+        .sorted(Comparator.comparingLong(ItemCallCounts::total).reversed()
+            .thenComparing(ItemCallCounts::id))
+        .limit(Math.max(0, limit))
+        .toList();
+  }
+
+  /**
+   * Gets the number of items that have been called at least once.
+   *
+   * @return The number of items.
+   */
+  public static int calledItemCount() {
+    return (int) itemCalls.values().stream()
+        .filter(calls -> calls.makeItem().sum() > 0 || calls.isType().sum() > 0)
+        .count();
+  }
+
+  /**
+   * Clears every timer and counter.
+   */
+  public static void reset() {
+    timers.values().forEach(Timer::reset);
+    counters.values().forEach(LongAdder::reset);
+    itemCalls.values().forEach(calls -> {
+      calls.makeItem().reset();
+      calls.isType().reset();
+    });
+  }
+
+  /**
+   * Adds an exporter that is called on every {@link #export()}.
+   *
+   * @param exporter The exporter to add.
+   */
+  public static void addExporter(@NotNull MetricsExporter exporter) {
+    exporters.add(exporter);
+  }
+
+  /**
+   * Removes an exporter.
+   *
+   * @param exporter The exporter to remove.
+   */
+  public static void removeExporter(@NotNull MetricsExporter exporter) {
+    exporters.remove(exporter);
+  }
+
+  /**
+   * Sends a snapshot of the metrics to every registered exporter. Exporters may do I/O, so call
+   * this off the main thread.
+   */
+  public static void export() {
+
+    List<Timer.Snapshot> timerSnapshots = timerSnapshots();
+    Map<String, Long> counterValues = counterValues();
+
+    for (MetricsExporter exporter : exporters) {
+      try {
+        exporter.export(timerSnapshots, counterValues);
+      } catch (IOException e) {
+        GreenPandaCore.getCore().getLogger().log(Level.WARNING, "Could not export metrics", e);
+      }
+    }
+
+  }
+
+  /**
+   * How many times the methods of one custom item were called.
+   *
+   * @param makeItem Calls to {@link dev.michaud.greenpanda.core.item.CustomItem#makeItem()}.
+   * @param isType   Calls to {@link dev.michaud.greenpanda.core.item.CustomItem#isType}.
+   */
+  public record ItemCalls(@NotNull LongAdder makeItem, @NotNull LongAdder isType) {
+
+  }
+
+  /**
+   * The values of one item's {@link ItemCalls} at one point in time.
+   *
+   * @param id       The namespaced id of the item.
+   * @param makeItem Calls to {@link dev.michaud.greenpanda.core.item.CustomItem#makeItem()}.
+   * @param isType   Calls to {@link dev.michaud.greenpanda.core.item.CustomItem#isType}.
+   */
+  public record ItemCallCounts(@NotNull String id, long makeItem, long isType) {
+
+    /**
+     * Gets the total number of calls.
+     *
+     * @return The sum of both counts.
+     */
+    public long total() {
+      return makeItem + isType;
+    }
+
+  }
+
+}
\ No newline at end of file
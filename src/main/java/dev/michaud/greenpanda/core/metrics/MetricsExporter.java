@@ -0,0 +1,25 @@
+package dev.michaud.greenpanda.core.metrics;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Sends the collected {@link Metrics} somewhere. Register exporters with
+ * {@link Metrics#addExporter(MetricsExporter)}. Exports run off the main thread.
+ */
+@FunctionalInterface
+public interface MetricsExporter {
+
+  /**
+   * Exports a snapshot of the metrics.
+   *
+   * @param timers   A snapshot of every timer.
+   * @param counters The value of every counter, keyed by name.
+   * @throws IOException If the metrics could not be exported.
+   */
+  void export(@NotNull List<Timer.Snapshot> timers, @NotNull Map<String, Long> counters)
+      throws IOException;
+
+}
\ No newline at end of file
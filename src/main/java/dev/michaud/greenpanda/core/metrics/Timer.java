@@ -0,0 +1,159 @@
+package dev.michaud.greenpanda.core.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Records how long something takes. Latencies are counted in power-of-two nanosecond buckets, so
+ * recording is lock-free and never allocates.
+ *
+ * <pre>{@code
+ * long start = System.nanoTime();
+ * try {
+ *   doWork();
+ * } finally {
+ *   timer.recordSince(start);
+ * }
+ * }</pre>
+ */
+public final class Timer {
+
+  private static final int BUCKETS = 48;
+
+  private final String name;
+  private final LongAdder count = new LongAdder();
+  private final LongAdder totalNanos = new LongAdder();
+  private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+  private final LongAdder[] buckets = new LongAdder[BUCKETS];
+
+  Timer(@NotNull String name) {
+
+    this.name = name;
+
+    for (int i = 0; i < BUCKETS; i++) {
+      buckets[i] = new LongAdder();
+    }
+
+  }
+
+  /**
+   * Gets the name of this timer.
+   *
+   * @return The name.
+   */
+  public @NotNull String getName() {
+    return name;
+  }
+
+  /**
+   * Records a duration.
+   *
+   * @param nanos The duration in nanoseconds.
+   */
+  public void record(long nanos) {
+
+    if (nanos < 0) {
+      return;
+    }
+
+    count.increment();
+    totalNanos.add(nanos);
+    maxNanos.accumulate(nanos);
+    buckets[Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(nanos))].increment();
+
+  }
+
+  /**
+   * Records the time since the given start time.
+   *
+   * @param startNanos The start time, from {@link System#nanoTime()}.
+   */
+  public void recordSince(long startNanos) {
+    record(System.nanoTime() - startNanos);
+  }
+
+  /**
+   * Clears everything recorded so far.
+   */
+  public void reset() {
+
+    count.reset();
+    totalNanos.reset();
+    maxNanos.reset();
+
+    for (LongAdder bucket : buckets) {
+      bucket.reset();
+    }
+
+  }
+
+  /**
+   * Takes a snapshot of the recorded values.
+   *
+   * @return The snapshot.
+   */
+  public @NotNull Snapshot snapshot() {
+
+    long[] counts = new long[BUCKETS];
+    long total = 0;
+
+    for (int i = 0; i < BUCKETS; i++) {
+      counts[i] = buckets[i].sum();
+      total += counts[i];
+    }
+
+    return new Snapshot(name, total, totalNanos.sum(), maxNanos.get(),
+        percentile(counts, total, 0.5), percentile(counts, total, 0.99));
+
+  }
+
+  /**
+   * Estimates a percentile as the upper bound of the bucket it falls in.
+   */
+  private static long percentile(long @NotNull [] counts, long total, double percentile) {
+
+    if (total == 0) {
+      return 0;
+    }
+
+    long target = (long) Math.ceil(total * percentile);
+    long seen = 0;
+
+    for (int i = 0; i < counts.length; i++) {
+      seen += counts[i];
+      if (seen >= target) {
+        return i == 0 ? 0 : (1L << i) - 1;
+      }
+    }
+
+    return Long.MAX_VALUE;
+
+  }
+
+  /**
+   * The values recorded by a {@link Timer} at one point in time. The percentiles are estimates,
+   * accurate to within a factor of two.
+   *
+   * @param name       The name of the timer.
+   * @param count      The number of durations recorded.
+   * @param totalNanos The sum of every recorded duration.
+   * @param maxNanos   The longest recorded duration.
+   * @param p50Nanos   The estimated median duration.
+   * @param p99Nanos   The estimated 99th percentile duration.
+   */
+  public record Snapshot(@NotNull String name, long count, long totalNanos, long maxNanos,
+                         long p50Nanos, long p99Nanos) {
+
+    /**
+     * Gets the mean duration.
+     *
+     * @return The mean duration in nanoseconds, or 0 if nothing was recorded.
+     */
+    public long meanNanos() {
+      return count == 0 ? 0 : totalNanos / count;
+    }
+
+  }
+
+}
\ No newline at end of file
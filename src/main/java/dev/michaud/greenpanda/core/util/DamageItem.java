@@ -2,12 +2,17 @@ package dev.michaud.greenpanda.core.util;
 
 import java.util.HashMap;
 import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 import org.bukkit.Sound;
 import org.bukkit.enchantments.Enchantment;
 import org.bukkit.entity.Player;
+import org.bukkit.event.player.PlayerItemBreakEvent;
+import org.bukkit.inventory.EquipmentSlot;
 import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.PlayerInventory;
 import org.bukkit.inventory.meta.Damageable;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * Utility class to damage and break custom items.
@@ -19,10 +24,10 @@ public class DamageItem {
    *
    * @param player The player with the item
    * @param item   The item to damage
-   * @return True if the item was damaged.
+   * @return True if the item was damaged, or scheduled to be damaged.
    */
   public static boolean damageItemWithUnbreaking(@NotNull Player player, @NotNull ItemStack item) {
-    return damageItemWithUnbreaking(player, item, new Random());
+    return damageItemWithUnbreaking(player, item, ThreadLocalRandom.current());
   }
 
   /**
@@ -31,30 +36,49 @@ public class DamageItem {
    * @param player The player with the item
    * @param item   The item to damage
    * @param random The random instance to use
-   * @return True if the item was damaged.
+   * @return True if the item was damaged, or scheduled to be damaged.
    */
   public static boolean damageItemWithUnbreaking(@NotNull Player player, @NotNull ItemStack item,
       Random random) {
+    return damage(player, item, 1, random);
+  }
 
-    if (!(item.getItemMeta() instanceof Damageable meta)) {
-      return false;
-    }
-
-    if (meta.isUnbreakable()) {
-      return false;
-    }
+  /**
+   * Damages an item by the given amount, taking unbreaking enchantments into account. Unbreaking
+   * is rolled once for each point of damage, but the item meta is only read and written once.
+   *
+   * @param player The player with the item
+   * @param item   The item to damage
+   * @param amount The number of points of damage
+   * @return True if the item was damaged, or scheduled to be damaged.
+   */
+  public static boolean damageItemWithUnbreaking(@NotNull Player player, @NotNull ItemStack item,
+      int amount) {
+    return damage(player, item, amount, ThreadLocalRandom.current());
+  }
 
-    //Tool has (chance)% to break
-    int level = meta.getEnchantLevel(Enchantment.DURABILITY);
-    double chance = 100.0 / (level + 1);
+  /**
+   * Damages every item by the given amount, taking unbreaking enchantments into account.
+   *
+   * @param player The player with the items
+   * @param items  The items to damage
+   * @param amount The number of points of damage to each item
+   * @return The number of items that were damaged, or scheduled to be damaged.
+   * @see DamageItem#damageItemWithUnbreaking(Player, ItemStack, int)
+   */
+  public static int damageItemsWithUnbreaking(@NotNull Player player,
+      @NotNull Iterable<? extends ItemStack> items, int amount) {
 
-    double rand = random.nextDouble() * 100;
+    Random random = ThreadLocalRandom.current();
+    int damaged = 0;
 
-    if (rand < chance) {
-      return damageItem(player, item);
+    for (ItemStack item : items) {
+      if (item != null && damage(player, item, amount, random)) {
+        damaged++;
+      }
     }
 
-    return false;
+    return damaged;
 
   }
 
@@ -63,28 +87,266 @@ public class DamageItem {
    *
    * @param player The player with the item
    * @param item   The item to damage
-   * @return True if the item was damaged.
+   * @return True if the item was damaged, or scheduled to be damaged.
    */
   public static boolean damageItem(Player player, @NotNull ItemStack item) {
+    return damage(player, item, 1, null);
+  }
 
-    if (!(item.getItemMeta() instanceof Damageable meta)) {
+  /**
+   * Damages an item by the given amount without taking unbreaking enchantments into account. The
+   * item meta is only read and written once.
+   *
+   * @param player The player with the item
+   * @param item   The item to damage
+   * @param amount The number of points of damage
+   * @return True if the item was damaged, or scheduled to be damaged.
+   */
+  public static boolean damageItem(Player player, @NotNull ItemStack item, int amount) {
+    return damage(player, item, amount, null);
+  }
+
+  /**
+   * Damages every item by the given amount without taking unbreaking enchantments into account.
+   *
+   * @param player The player with the items
+   * @param items  The items to damage
+   * @param amount The number of points of damage to each item
+   * @return The number of items that were damaged, or scheduled to be damaged.
+   * @see DamageItem#damageItem(Player, ItemStack, int)
+   */
+  public static int damageItems(Player player, @NotNull Iterable<? extends ItemStack> items,
+      int amount) {
+
+    int damaged = 0;
+
+    for (ItemStack item : items) {
+      if (item != null && damage(player, item, amount, null)) {
+        damaged++;
+      }
+    }
+
+    return damaged;
+
+  }
+
+  /**
+   * Damages the item in the given inventory slot by the given amount, without taking unbreaking
+   * enchantments into account. If the item breaks, only that slot is changed. If called from a
+   * thread that doesn't own the player (on Folia), the item is damaged on the player's region
+   * thread instead.
+   *
+   * @param player The player with the item
+   * @param slot   The slot in the player's inventory
+   * @param amount The number of points of damage
+   * @return True if the item was damaged, or scheduled to be damaged.
+   */
+  public static boolean damageItem(@NotNull Player player, int slot, int amount) {
+    return damageSlot(player, slot, amount, false);
+  }
+
+  /**
+   * Damages the item in the given inventory slot by the given amount, taking unbreaking
+   * enchantments into account. If the item breaks, only that slot is changed.
+   *
+   * @param player The player with the item
+   * @param slot   The slot in the player's inventory
+   * @param amount The number of points of damage
+   * @return True if the item was damaged, or scheduled to be damaged.
+   * @see DamageItem#damageItem(Player, int, int)
+   */
+  public static boolean damageItemWithUnbreaking(@NotNull Player player, int slot, int amount) {
+    return damageSlot(player, slot, amount, true);
+  }
+
+  /**
+   * Damages the item in the given equipment slot by the given amount, without taking unbreaking
+   * enchantments into account. If the item breaks, only that slot is changed.
+   *
+   * @param player The player with the item
+   * @param slot   The equipment slot
+   * @param amount The number of points of damage
+   * @return True if the item was damaged, or scheduled to be damaged.
+   * @see DamageItem#damageItem(Player, int, int)
+   */
+  public static boolean damageItem(@NotNull Player player, @NotNull EquipmentSlot slot,
+      int amount) {
+    return damageSlot(player, toSlot(player, slot), amount, false);
+  }
+
+  /**
+   * Damages the item in the given equipment slot by the given amount, taking unbreaking
+   * enchantments into account. If the item breaks, only that slot is changed.
+   *
+   * @param player The player with the item
+   * @param slot   The equipment slot
+   * @param amount The number of points of damage
+   * @return True if the item was damaged, or scheduled to be damaged.
+   * @see DamageItem#damageItem(Player, int, int)
+   */
+  public static boolean damageItemWithUnbreaking(@NotNull Player player,
+      @NotNull EquipmentSlot slot, int amount) {
+    return damageSlot(player, toSlot(player, slot), amount, true);
+  }
+
+  /**
+   * Applies damage to an item with one item meta read and write. If random is not null, each point
+   * of damage is ignored with the chance given by the item's unbreaking level. The item breaks once
+   * its damage goes past the max durability. If called from a thread that doesn't own the player
+   * (on Folia), the item is damaged on the player's region thread instead.
+   */
+  private static boolean damage(Player player, @NotNull ItemStack item, int amount,
+      @Nullable Random random) {
+
+    if (player != null && !TaskScheduler.isOwnedByCurrentRegion(player)) {
+
+      //A ThreadLocalRandom can only be used by the thread that got it
+      boolean threadLocal = random instanceof ThreadLocalRandom;
+
+      TaskScheduler.runForEntity(player, () -> damage(player, item, amount,
+          threadLocal ? ThreadLocalRandom.current() : random));
+
+      return true;
+
+    }
+
+    Result result = apply(item, amount, random);
+
+    if (result == Result.BROKEN) {
+      return breakItem(player, item, true);
+    }
+
+    return result == Result.DAMAGED;
+
+  }
+
+  private static boolean damageSlot(@NotNull Player player, int slot, int amount,
+      boolean unbreaking) {
+
+    if (!TaskScheduler.isOwnedByCurrentRegion(player)) {
+      TaskScheduler.runForEntity(player, () -> damageSlot(player, slot, amount, unbreaking));
+      return true;
+    }
+
+    PlayerInventory inventory = player.getInventory();
+    ItemStack item = inventory.getItem(slot);
+
+    if (item == null) {
       return false;
     }
 
+    Result result = apply(item, amount, unbreaking ? ThreadLocalRandom.current() : null);
+
+    if (result == Result.BROKEN) {
+      return breakSlot(player, slot, item, true);
+    }
+
+    if (result == Result.DAMAGED) {
+      inventory.setItem(slot, item);
+      return true;
+    }
+
+    return false;
+
+  }
+
+  /**
+   * Applies damage to the item's meta, unless the item would break. Doesn't change the item if it
+   * breaks, so the caller can remove it.
+   */
+  @NotNull
+  private static Result apply(@NotNull ItemStack item, int amount, @Nullable Random random) {
+
+    if (amount <= 0 || !(item.getItemMeta() instanceof Damageable meta)) {
+      return Result.NONE;
+    }
+
     if (meta.isUnbreakable()) {
-      return false;
+      return Result.NONE;
+    }
+
+    if (random != null) {
+      amount = rollUnbreaking(meta.getEnchantLevel(Enchantment.DURABILITY), amount, random);
+    }
+
+    if (amount == 0) {
+      return Result.NONE;
+    }
+
+    long damage = (long) meta.getDamage() + amount;
+
+    if (damage > item.getType().getMaxDurability()) {
+      return Result.BROKEN;
+    }
+
+    meta.setDamage((int) damage);
+    item.setItemMeta(meta);
+    return Result.DAMAGED;
+
+  }
+
+  /**
+   * Gets how many of the points of damage go through. With unbreaking, each point has a
+   * 1 / (level + 1) chance to go through.
+   */
+  private static int rollUnbreaking(int level, int amount, @NotNull Random random) {
+
+    if (level <= 0) {
+      return amount;
     }
 
-    int damage = meta.getDamage();
+    int applied = 0;
+
+    for (int i = 0; i < amount; i++) {
+      if (random.nextInt(level + 1) == 0) {
+        applied++;
+      }
+    }
 
-    if (damage < item.getType().getMaxDurability()) {
-      meta.setDamage(meta.getDamage() + 1);
-      item.setItemMeta(meta);
+    return applied;
+
+  }
+
+  /**
+   * Breaks the item in the given inventory slot, like when a tool runs out of durability. Fires a
+   * {@link PlayerItemBreakEvent}, then removes one item from the slot. Unlike
+   * {@link DamageItem#breakItem(Player, ItemStack, boolean)}, this doesn't search the inventory, so
+   * it always breaks the right item even if the player has identical ones.
+   *
+   * @param player    The player with the item
+   * @param slot      The slot in the player's inventory
+   * @param playSound Whether to play the breaking sound.
+   * @return True if the item was broken, or scheduled to be broken.
+   */
+  public static boolean breakItem(@NotNull Player player, int slot, boolean playSound) {
+
+    if (!TaskScheduler.isOwnedByCurrentRegion(player)) {
+      TaskScheduler.runForEntity(player, () -> breakItem(player, slot, playSound));
       return true;
-    } else {
-      return breakItem(player, item, true);
     }
 
+    ItemStack item = player.getInventory().getItem(slot);
+
+    if (item == null || item.getType().isAir()) {
+      return false;
+    }
+
+    return breakSlot(player, slot, item, playSound);
+
+  }
+
+  /**
+   * Breaks the item in the given equipment slot, like when a tool runs out of durability.
+   *
+   * @param player    The player with the item
+   * @param slot      The equipment slot
+   * @param playSound Whether to play the breaking sound.
+   * @return True if the item was broken, or scheduled to be broken.
+   * @see DamageItem#breakItem(Player, int, boolean)
+   */
+  public static boolean breakItem(@NotNull Player player, @NotNull EquipmentSlot slot,
+      boolean playSound) {
+    return breakItem(player, toSlot(player, slot), playSound);
   }
 
   /**
@@ -101,16 +363,24 @@ public class DamageItem {
 
   /**
    * Breaks an item by removing it from the player's inventory. If playSound is true, a breaking
-   * sound will play at the player's location.
+   * sound will play at the player's location. If called from a thread that doesn't own the player
+   * (on Folia), the item is broken on the player's region thread instead. This searches the whole
+   * inventory for a similar item, so prefer {@link DamageItem#breakItem(Player, int, boolean)} when
+   * the slot is known.
    *
    * @param player    The player with the item
    * @param item      The item to break
    * @param playSound Whether to play the breaking sound.
-   * @return True if the item was broken.
+   * @return True if the item was broken, or scheduled to be broken.
    */
   public static boolean breakItem(@NotNull Player player, @NotNull ItemStack item,
       boolean playSound) {
 
+    if (!TaskScheduler.isOwnedByCurrentRegion(player)) {
+      TaskScheduler.runForEntity(player, () -> breakItem(player, item, playSound));
+      return true;
+    }
+
     HashMap<Integer, ItemStack> remove = player.getInventory().removeItem(item);
     if (!remove.isEmpty()) {
       return false;
@@ -124,4 +394,55 @@ public class DamageItem {
 
   }
 
+  /**
+   * Fires the break event and removes one item from the slot. Like vanilla, the rest of a stacked
+   * tool is repaired.
+   */
+  private static boolean breakSlot(@NotNull Player player, int slot, @NotNull ItemStack item,
+      boolean playSound) {
+
+    player.getServer().getPluginManager().callEvent(new PlayerItemBreakEvent(player, item));
+
+    if (item.getAmount() > 1) {
+
+      item.setAmount(item.getAmount() - 1);
+
+      if (item.getItemMeta() instanceof Damageable meta) {
+        meta.setDamage(0);
+        item.setItemMeta(meta);
+      }
+
+      player.getInventory().setItem(slot, item);
+
+    } else {
+      player.getInventory().setItem(slot, null);
+    }
+
+    if (playSound) {
+      player.playSound(player.getLocation(), Sound.ENTITY_ITEM_BREAK, 1F, 1F);
+    }
+
+    return true;
+
+  }
+
+  /**
+   * Gets the raw player inventory slot of an equipment slot.
+   */
+  private static int toSlot(@NotNull Player player, @NotNull EquipmentSlot slot) {
+    return switch (slot) {
+      case HAND -> player.getInventory().getHeldItemSlot();
+      case OFF_HAND -> 40;
+      case FEET -> 36;
+      case LEGS -> 37;
+      case CHEST -> 38;
+      case HEAD -> 39;
+      default -> throw new IllegalArgumentException("Unsupported equipment slot " + slot);
+    };
+  }
+
+  private enum Result {
+    NONE, DAMAGED, BROKEN
+  }
+
 }
\ No newline at end of file
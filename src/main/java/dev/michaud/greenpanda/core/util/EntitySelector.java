@@ -0,0 +1,824 @@
+package dev.michaud.greenpanda.core.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import org.bukkit.GameMode;
+import org.bukkit.Location;
+import org.bukkit.NamespacedKey;
+import org.bukkit.Registry;
+import org.bukkit.World;
+import org.bukkit.command.BlockCommandSender;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.Player;
+import org.bukkit.util.BoundingBox;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A compiled target selector, such as {@code @e[type=panda,distance=..20,limit=5,sort=nearest]}.
+ * Selectors are parsed once and cached by {@link #compile(String)}, so running the same selector
+ * again only does the entity search.
+ *
+ * <p>Supported arguments are {@code x}, {@code y}, {@code z}, {@code dx}, {@code dy}, {@code dz},
+ * {@code distance}, {@code type}, {@code tag}, {@code name}, {@code gamemode}, {@code limit} and
+ * {@code sort}. Position and distance arguments are used to search a bounding box instead of the
+ * whole world, and a {@code type} argument only searches entities of that class.</p>
+ */
+public final class EntitySelector {
+
+  private static final int MAX_CACHED = 512;
+  private static final int MAX_INDEXED_NEAREST = 16;
+
+  private static final Map<String, EntitySelector> cache = new ConcurrentHashMap<>();
+
+  private final Base base;
+  private final Double x;
+  private final Double y;
+  private final Double z;
+  private final Double dx;
+  private final Double dy;
+  private final Double dz;
+  private final double minDistanceSquared;
+  private final double maxDistanceSquared;
+  private final double maxDistance;
+  private final EntityType type;
+  private final Set<EntityType> excludedTypes;
+  private final Set<String> tags;
+  private final Set<String> excludedTags;
+  private final String name;
+  private final Set<String> excludedNames;
+  private final GameMode gameMode;
+  private final Set<GameMode> excludedGameModes;
+  private final int limit;
+  private final Sort sort;
+
+  private EntitySelector(@NotNull Builder builder) {
+    base = builder.base;
+    x = builder.x;
+    y = builder.y;
+    z = builder.z;
+    dx = builder.dx;
+    dy = builder.dy;
+    dz = builder.dz;
+    minDistanceSquared = builder.minDistance < 0 ? -1 : builder.minDistance * builder.minDistance;
+    maxDistance = builder.maxDistance;
+    maxDistanceSquared = Double.isInfinite(builder.maxDistance) ? Double.POSITIVE_INFINITY
+        : builder.maxDistance * builder.maxDistance;
+    type = builder.type;
+    excludedTypes = Set.copyOf(builder.excludedTypes);
+    tags = Set.copyOf(builder.tags);
+    excludedTags = Set.copyOf(builder.excludedTags);
+    name = builder.name;
+    excludedNames = Set.copyOf(builder.excludedNames);
+    gameMode = builder.gameMode;
+    excludedGameModes = Set.copyOf(builder.excludedGameModes);
+    limit = builder.limit == null ? base.defaultLimit : builder.limit;
+    sort = builder.sort == null ? base.defaultSort : builder.sort;
+  }
+
+  /**
+   * Gets the compiled selector for the given string, parsing it if it isn't cached yet.
+   *
+   * @param selector The target selector, e.g. {@code @e[type=panda]}.
+   * @return The compiled selector, or null if the selector is invalid.
+   */
+  @Nullable
+  @Contract("null -> null")
+  public static EntitySelector compile(String selector) {
+
+    if (selector == null) {
+      return null;
+    }
+
+    EntitySelector compiled = cache.get(selector);
+
+    if (compiled != null) {
+      return compiled;
+    }
+
+    try {
+      compiled = parse(selector);
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+
+    if (cache.size() >= MAX_CACHED) {
+      cache.clear();
+    }
+
+    cache.put(selector, compiled);
+
+    return compiled;
+
+  }
+
+  /**
+   * Parses a target selector without using the cache.
+   *
+   * @param selector The target selector, e.g. {@code @e[type=panda]}.
+   * @return The compiled selector.
+   * @throws IllegalArgumentException If the selector is invalid.
+   */
+  public static @NotNull EntitySelector parse(@NotNull String selector) {
+
+    String trimmed = selector.trim();
+
+    if (trimmed.length() < 2 || trimmed.charAt(0) != '@') {
+      throw new IllegalArgumentException("Not a target selector: " + selector);
+    }
+
+    Builder builder = new Builder(Base.fromChar(trimmed.charAt(1)));
+
+    if (trimmed.length() == 2) {
+      return new EntitySelector(builder);
+    }
+
+    if (trimmed.charAt(2) != '[' || trimmed.charAt(trimmed.length() - 1) != ']') {
+      throw new IllegalArgumentException("Invalid target selector: " + selector);
+    }
+
+    for (String argument : splitArguments(trimmed.substring(3, trimmed.length() - 1))) {
+
+      int equals = argument.indexOf('=');
+
+      if (equals < 0) {
+        throw new IllegalArgumentException("Expected key=value in " + argument);
+      }
+
+      String key = argument.substring(0, equals).trim().toLowerCase(Locale.ROOT);
+      String value = argument.substring(equals + 1).trim();
+
+      builder.apply(key, value);
+
+    }
+
+    return new EntitySelector(builder);
+
+  }
+
+  /**
+   * Finds every entity that matches this selector.
+   *
+   * @param sender The sender running the selector. Its location is used as the origin.
+   * @return The matching entities, in selector order. Empty if none match.
+   */
+  public @NotNull List<Entity> select(@NotNull CommandSender sender) {
+    return select(sender, Entity.class);
+  }
+
+  /**
+   * Finds every entity of the given class that matches this selector.
+   *
+   * @param sender The sender running the selector. Its location is used as the origin.
+   * @param clazz  The class of entity to find. Other entities are skipped.
+   * @param <T>    The type of entity.
+   * @return The matching entities, in selector order. Empty if none match.
+   * @throws IllegalStateException If the selector searches for entities other than players, and
+   *                               the current thread doesn't own the origin (on Folia).
+   * @see #select(CommandSender, Class, Consumer)
+   */
+  public <T extends Entity> @NotNull List<T> select(@NotNull CommandSender sender,
+      @NotNull Class<T> clazz) {
+    return select(sender, origin(sender), clazz);
+  }
+
+  /**
+   * Finds every entity of the given class that matches this selector, on the thread that owns the
+   * selector's origin. Selectors that only find players, or the sender, run straight away.
+   *
+   * @param sender   The sender running the selector. Its location is used as the origin.
+   * @param clazz    The class of entity to find. Other entities are skipped.
+   * @param callback Given the matching entities, in selector order. May run later, on another
+   *                 thread.
+   * @param <T>      The type of entity.
+   */
+  public <T extends Entity> void select(@NotNull CommandSender sender, @NotNull Class<T> clazz,
+      @NotNull Consumer<List<T>> callback) {
+
+    Location origin = origin(sender);
+
+    if (origin == null || base == Base.SELF || searchesPlayers(clazz)) {
+      callback.accept(select(sender, origin, clazz));
+      return;
+    }
+
+    TaskScheduler.runAtLocation(origin, () -> callback.accept(select(sender, origin, clazz)));
+
+  }
+
+  private <T extends Entity> @NotNull List<T> select(@NotNull CommandSender sender,
+      @Nullable Location origin, @NotNull Class<T> clazz) {
+
+    BoundingBox volume = origin != null && hasVolume() ? volume(origin) : null;
+
+    if (base == Base.SELF) {
+
+      if (sender instanceof Entity entity && clazz.isInstance(entity)
+          && matches(entity, origin, volume)) {
+        return List.of(clazz.cast(entity));
+      }
+
+      return List.of();
+
+    }
+
+    if (origin == null) {
+      return List.of();
+    }
+
+    if (sort == Sort.NEAREST && Double.isInfinite(maxDistance) && limit <= MAX_INDEXED_NEAREST
+        && searchesPlayers(clazz)) {
+
+      List<T> nearest = nearestPlayers(origin, volume, clazz);
+
+      if (nearest != null) {
+        return nearest;
+      }
+
+    }
+
+    List<T> result = new ArrayList<>();
+
+    for (Entity entity : candidates(origin, volume, clazz)) {
+      if (clazz.isInstance(entity) && matches(entity, origin, volume)) {
+        result.add(clazz.cast(entity));
+      }
+    }
+
+    if (result.size() > 1) {
+      sort(result, origin);
+    }
+
+    if (result.size() > limit) {
+      return result.subList(0, limit);
+    }
+
+    return result;
+
+  }
+
+  /**
+   * Gets the closest players from the {@link PlayerSpatialIndex}, without looking at every player
+   * in the world.
+   *
+   * @return The matching players, or null if one of the closest players didn't match and the
+   * whole world has to be searched instead.
+   */
+  private <T extends Entity> @Nullable List<T> nearestPlayers(@NotNull Location origin,
+      @Nullable BoundingBox volume, @NotNull Class<T> clazz) {
+
+    List<Player> players = PlayerSpatialIndex.nearest(origin, limit);
+    List<T> result = new ArrayList<>(players.size());
+
+    for (Player player : players) {
+
+      if (!clazz.isInstance(player) || !matches(player, origin, volume)) {
+        return null;
+      }
+
+      result.add(clazz.cast(player));
+
+    }
+
+    return result;
+
+  }
+
+  /**
+   * Checks if this selector only finds players. Players are found with {@link World#getPlayers()},
+   * or with the {@link PlayerSpatialIndex} when a distance is given, so this works from any thread.
+   * The index only has players that joined the server, so fake players added by other plugins are
+   * only found by selectors without a distance.
+   */
+  private boolean searchesPlayers(@NotNull Class<? extends Entity> clazz) {
+    return base.playersOnly || Player.class.isAssignableFrom(clazz);
+  }
+
+  /**
+   * Gets the entities that could match this selector, using the narrowest search the arguments
+   * allow.
+   */
+  private @NotNull Collection<? extends Entity> candidates(@NotNull Location origin,
+      @Nullable BoundingBox volume, @NotNull Class<? extends Entity> clazz) {
+
+    World world = origin.getWorld();
+
+    if (searchesPlayers(clazz)) {
+      return Double.isInfinite(maxDistance) ? world.getPlayers()
+          : PlayerSpatialIndex.withinRadius(origin, maxDistance);
+    }
+
+    if (!TaskScheduler.isOwnedByCurrentRegion(origin)) {
+      throw new IllegalStateException("Selectors must search for entities on the thread that owns"
+          + " their origin, use select(sender, clazz, callback) instead");
+    }
+
+    BoundingBox box = searchBox(origin, volume);
+
+    if (box != null) {
+      return world.getNearbyEntities(box, this::matchesType);
+    }
+
+    if (type != null && type.getEntityClass() != null) {
+      return world.getEntitiesByClass(type.getEntityClass());
+    }
+
+    if (clazz != Entity.class) {
+      return world.getEntitiesByClass(clazz);
+    }
+
+    return world.getEntities();
+
+  }
+
+  /**
+   * Gets the box that contains every entity this selector could match, or null if it could match
+   * anywhere in the world.
+   */
+  private @Nullable BoundingBox searchBox(@NotNull Location origin,
+      @Nullable BoundingBox volume) {
+
+    BoundingBox box = volume == null ? null : volume.clone();
+
+    if (!Double.isInfinite(maxDistance)) {
+
+      BoundingBox sphere = BoundingBox.of(origin, maxDistance, maxDistance, maxDistance);
+
+      if (box == null) {
+        box = sphere;
+      } else if (box.overlaps(sphere)) {
+        box = box.intersection(sphere);
+      } else {
+        box = new BoundingBox(origin.getX(), origin.getY(), origin.getZ(), origin.getX(),
+            origin.getY(), origin.getZ());
+      }
+
+    }
+
+    return box;
+
+  }
+
+  private boolean hasVolume() {
+    return dx != null || dy != null || dz != null;
+  }
+
+  /**
+   * Gets the block-aligned volume given by the {@code dx}, {@code dy} and {@code dz} arguments.
+   */
+  private @NotNull BoundingBox volume(@NotNull Location origin) {
+
+    double sizeX = dx == null ? 0 : dx;
+    double sizeY = dy == null ? 0 : dy;
+    double sizeZ = dz == null ? 0 : dz;
+
+    return new BoundingBox(
+        origin.getX() + Math.min(0, sizeX), origin.getY() + Math.min(0, sizeY),
+        origin.getZ() + Math.min(0, sizeZ), origin.getX() + Math.max(0, sizeX) + 1,
+        origin.getY() + Math.max(0, sizeY) + 1, origin.getZ() + Math.max(0, sizeZ) + 1);
+
+  }
+
+  private boolean matchesType(@NotNull Entity entity) {
+
+    EntityType entityType = entity.getType();
+
+    if (type != null && entityType != type) {
+      return false;
+    }
+
+    return !excludedTypes.contains(entityType);
+
+  }
+
+  private boolean matches(@NotNull Entity entity, @Nullable Location origin,
+      @Nullable BoundingBox volume) {
+
+    if (!matchesType(entity)) {
+      return false;
+    }
+
+    if (base.playersOnly && !(entity instanceof Player)) {
+      return false;
+    }
+
+    if (origin != null && !matchesPosition(entity, origin, volume)) {
+      return false;
+    }
+
+    if (!tags.isEmpty() || !excludedTags.isEmpty()) {
+
+      Set<String> entityTags = entity.getScoreboardTags();
+
+      for (String tag : tags) {
+        if (tag.isEmpty() ? !entityTags.isEmpty() : !entityTags.contains(tag)) {
+          return false;
+        }
+      }
+
+      for (String tag : excludedTags) {
+        if (tag.isEmpty() ? entityTags.isEmpty() : entityTags.contains(tag)) {
+          return false;
+        }
+      }
+
+    }
+
+    if (name != null || !excludedNames.isEmpty()) {
+
+      String entityName = entity.getName();
+
+      if (name != null && !name.equals(entityName)) {
+        return false;
+      }
+
+      if (excludedNames.contains(entityName)) {
+        return false;
+      }
+
+    }
+
+    if (gameMode != null || !excludedGameModes.isEmpty()) {
+
+      if (!(entity instanceof Player player)) {
+        return false;
+      }
+
+      if (gameMode != null && player.getGameMode() != gameMode) {
+        return false;
+      }
+
+      return !excludedGameModes.contains(player.getGameMode());
+
+    }
+
+    return true;
+
+  }
+
+  private boolean matchesPosition(@NotNull Entity entity, @NotNull Location origin,
+      @Nullable BoundingBox volume) {
+
+    if (entity.getWorld() != origin.getWorld()) {
+      return false;
+    }
+
+    if (minDistanceSquared >= 0 || !Double.isInfinite(maxDistanceSquared)) {
+
+      double distance = entity.getLocation().distanceSquared(origin);
+
+      if (distance < minDistanceSquared || distance > maxDistanceSquared) {
+        return false;
+      }
+
+    }
+
+    if (volume != null) {
+      return volume.overlaps(entity.getBoundingBox());
+    }
+
+    return true;
+
+  }
+
+  private <T extends Entity> void sort(@NotNull List<T> entities, @NotNull Location origin) {
+
+    switch (sort) {
+      case NEAREST -> sortByDistance(entities, origin, false);
+      case FURTHEST -> sortByDistance(entities, origin, true);
+      case RANDOM -> Collections.shuffle(entities, ThreadLocalRandom.current());
+      case ARBITRARY -> {
+      }
+    }
+
+  }
+
+  /**
+   * Sorts the entities by their distance to the origin. Each distance is worked out once, instead
+   * of in every comparison.
+   */
+  @SuppressWarnings("unchecked")
+  private static <T extends Entity> void sortByDistance(@NotNull List<T> entities,
+      @NotNull Location origin, boolean furthestFirst) {
+
+    Location scratch = new Location(null, 0, 0, 0);
+    Ranked[] ranked = new Ranked[entities.size()];
+
+    for (int i = 0; i < ranked.length; i++) {
+      Entity entity = entities.get(i);
+      double distance = entity.getLocation(scratch).distanceSquared(origin);
+      ranked[i] = new Ranked(entity, furthestFirst ? -distance : distance);
+    }
+
+    Arrays.sort(ranked, Comparator.comparingDouble(Ranked::distance));
+
+    for (int i = 0; i < ranked.length; i++) {
+      entities.set(i, (T) ranked[i].entity());
+    }
+
+  }
+
+  private record Ranked(@NotNull Entity entity, double distance) {
+
+  }
+
+  /**
+   * Gets the origin of this selector for the given sender, applying the {@code x}, {@code y} and
+   * {@code z} arguments.
+   */
+  private @Nullable Location origin(@NotNull CommandSender sender) {
+
+    Location location = null;
+
+    if (sender instanceof Entity entity) {
+      location = entity.getLocation();
+    } else if (sender instanceof BlockCommandSender cmdBlock) {
+      location = cmdBlock.getBlock().getLocation().add(0.5, 0, 0.5);
+    }
+
+    if (location == null) {
+      return null;
+    }
+
+    if (x != null) {
+      location.setX(x);
+    }
+
+    if (y != null) {
+      location.setY(y);
+    }
+
+    if (z != null) {
+      location.setZ(z);
+    }
+
+    return location;
+
+  }
+
+  /**
+   * Splits the selector arguments by commas that aren't inside quotes.
+   */
+  private static @NotNull List<String> splitArguments(@NotNull String arguments) {
+
+    List<String> result = new ArrayList<>();
+    StringBuilder current = new StringBuilder();
+    boolean quoted = false;
+
+    for (int i = 0; i < arguments.length(); i++) {
+
+      char c = arguments.charAt(i);
+
+      if (c == '"') {
+        quoted = !quoted;
+      }
+
+      if (c == ',' && !quoted) {
+        result.add(current.toString());
+        current.setLength(0);
+      } else {
+        current.append(c);
+      }
+
+    }
+
+    if (quoted) {
+      throw new IllegalArgumentException("Unterminated quote in " + arguments);
+    }
+
+    if (!current.toString().isBlank() || !result.isEmpty()) {
+      result.add(current.toString());
+    }
+
+    return result;
+
+  }
+
+  /**
+   * The selector variable, e.g. the {@code a} in {@code @a}.
+   */
+  private enum Base {
+    SELF(true, false, 1, Sort.ARBITRARY),
+    ALL_PLAYERS(false, true, Integer.MAX_VALUE, Sort.ARBITRARY),
+    NEAREST_PLAYER(false, true, 1, Sort.NEAREST),
+    RANDOM_PLAYER(false, true, 1, Sort.RANDOM),
+    ALL_ENTITIES(false, false, Integer.MAX_VALUE, Sort.ARBITRARY);
+
+    private final boolean self;
+    private final boolean playersOnly;
+    private final int defaultLimit;
+    private final Sort defaultSort;
+
+    Base(boolean self, boolean playersOnly, int defaultLimit, Sort defaultSort) {
+      this.self = self;
+      this.playersOnly = playersOnly;
+      this.defaultLimit = defaultLimit;
+      this.defaultSort = defaultSort;
+    }
+
+    private static @NotNull Base fromChar(char c) {
+      return switch (c) {
+        case 's' -> SELF;
+        case 'a' -> ALL_PLAYERS;
+        case 'p' -> NEAREST_PLAYER;
+        case 'r' -> RANDOM_PLAYER;
+        case 'e' -> ALL_ENTITIES;
+        default -> throw new IllegalArgumentException("Unknown selector @" + c);
+      };
+    }
+  }
+
+  /**
+   * The order entities are returned in.
+   */
+  private enum Sort {
+    NEAREST, FURTHEST, RANDOM, ARBITRARY
+  }
+
+  /**
+   * Collects the parsed arguments of a selector.
+   */
+  private static final class Builder {
+
+    private final Base base;
+    private Double x;
+    private Double y;
+    private Double z;
+    private Double dx;
+    private Double dy;
+    private Double dz;
+    private double minDistance = -1;
+    private double maxDistance = Double.POSITIVE_INFINITY;
+    private EntityType type;
+    private final List<EntityType> excludedTypes = new ArrayList<>();
+    private final List<String> tags = new ArrayList<>();
+    private final List<String> excludedTags = new ArrayList<>();
+    private String name;
+    private final List<String> excludedNames = new ArrayList<>();
+    private GameMode gameMode;
+    private final List<GameMode> excludedGameModes = new ArrayList<>();
+    private Integer limit;
+    private Sort sort;
+
+    private Builder(@NotNull Base base) {
+      this.base = base;
+    }
+
+    private void apply(@NotNull String key, @NotNull String value) {
+
+      boolean inverted = value.startsWith("!");
+      String unquoted = unquote(inverted ? value.substring(1).trim() : value);
+
+      switch (key) {
+        case "x" -> x = parseDouble(value);
+        case "y" -> y = parseDouble(value);
+        case "z" -> z = parseDouble(value);
+        case "dx" -> dx = parseDouble(value);
+        case "dy" -> dy = parseDouble(value);
+        case "dz" -> dz = parseDouble(value);
+        case "distance" -> parseDistance(value);
+        case "type" -> {
+          EntityType entityType = parseType(unquoted);
+          if (inverted) {
+            excludedTypes.add(entityType);
+          } else if (type != null) {
+            throw new IllegalArgumentException("Only one type is allowed");
+          } else {
+            type = entityType;
+          }
+        }
+        case "tag" -> (inverted ? excludedTags : tags).add(unquoted);
+        case "name" -> {
+          if (inverted) {
+            excludedNames.add(unquoted);
+          } else if (name != null) {
+            throw new IllegalArgumentException("Only one name is allowed");
+          } else {
+            name = unquoted;
+          }
+        }
+        case "gamemode" -> {
+          GameMode mode = parseGameMode(unquoted);
+          if (inverted) {
+            excludedGameModes.add(mode);
+          } else if (gameMode != null) {
+            throw new IllegalArgumentException("Only one gamemode is allowed");
+          } else {
+            gameMode = mode;
+          }
+        }
+        case "limit" -> {
+          limit = parseInt(value);
+          if (limit < 1 || base.self) {
+            throw new IllegalArgumentException("Invalid limit " + value);
+          }
+        }
+        case "sort" -> {
+          if (base.self) {
+            throw new IllegalArgumentException("Sort is not allowed for @s");
+          }
+          sort = switch (value.toLowerCase(Locale.ROOT)) {
+            case "nearest" -> Sort.NEAREST;
+            case "furthest" -> Sort.FURTHEST;
+            case "random" -> Sort.RANDOM;
+            case "arbitrary" -> Sort.ARBITRARY;
+            default -> throw new IllegalArgumentException("Unknown sort " + value);
+          };
+        }
+        default -> throw new IllegalArgumentException("Unknown selector argument " + key);
+      }
+
+    }
+
+    private void parseDistance(@NotNull String value) {
+
+      int range = value.indexOf("..");
+
+      if (range < 0) {
+        minDistance = parseDouble(value);
+        maxDistance = minDistance;
+      } else {
+        String min = value.substring(0, range);
+        String max = value.substring(range + 2);
+
+        if (min.isEmpty() && max.isEmpty()) {
+          throw new IllegalArgumentException("Empty distance range");
+        }
+
+        minDistance = min.isEmpty() ? -1 : parseDouble(min);
+        maxDistance = max.isEmpty() ? Double.POSITIVE_INFINITY : parseDouble(max);
+
+        if (!min.isEmpty() && minDistance < 0) {
+          throw new IllegalArgumentException("Invalid distance " + value);
+        }
+      }
+
+      if (maxDistance < 0 || maxDistance < minDistance) {
+        throw new IllegalArgumentException("Invalid distance " + value);
+      }
+
+    }
+
+    private static @NotNull EntityType parseType(@NotNull String value) {
+
+      NamespacedKey key = NamespacedKey.fromString(value.toLowerCase(Locale.ROOT));
+      EntityType entityType = key == null ? null : Registry.ENTITY_TYPE.get(key);
+
+      if (entityType == null) {
+        throw new IllegalArgumentException("Unknown entity type " + value);
+      }
+
+      return entityType;
+
+    }
+
+    private static @NotNull GameMode parseGameMode(@NotNull String value) {
+      try {
+        return GameMode.valueOf(value.toUpperCase(Locale.ROOT));
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException("Unknown gamemode " + value, e);
+      }
+    }
+
+    private static double parseDouble(@NotNull String value) {
+      try {
+        return Double.parseDouble(value);
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("Invalid number " + value, e);
+      }
+    }
+
+    private static int parseInt(@NotNull String value) {
+      try {
+        return Integer.parseInt(value);
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("Invalid number " + value, e);
+      }
+    }
+
+    private static @NotNull String unquote(@NotNull String value) {
+
+      if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+        return value.substring(1, value.length() - 1);
+      }
+
+      return value;
+
+    }
+
+  }
+
+}
\ No newline at end of file
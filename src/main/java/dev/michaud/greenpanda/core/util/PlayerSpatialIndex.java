@@ -0,0 +1,387 @@
+package dev.michaud.greenpanda.core.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Keeps track of which chunk every online player is in, so nearest-player and radius queries only
+ * look at players close by instead of every player in the world. Kept up to date by
+ * {@link dev.michaud.greenpanda.core.eventlistener.PlayerPositionListener}.
+ *
+ * <p>Safe to use from any thread. Player positions are read when a query runs, so results are
+ * exact even though the index is only updated when a player changes chunk. Only players that
+ * joined the server are indexed, so fake players added by NPC plugins aren't found.</p>
+ */
+public class PlayerSpatialIndex {
+
+  private static final int CELL_SHIFT = 4;
+  private static final int CELL_SIZE = 1 << CELL_SHIFT;
+
+  /**
+   * The players in each cell, keyed by world id and then cell key.
+   */
+  private static final Map<UUID, Map<Long, Set<Player>>> worlds = new ConcurrentHashMap<>();
+
+  /**
+   * The cell each player is currently indexed in.
+   */
+  private static final Map<UUID, Cell> cells = new ConcurrentHashMap<>();
+
+  private record Cell(@NotNull UUID world, long key) {
+
+  }
+
+  /**
+   * Updates the index with the player's current location.
+   *
+   * @param player The player.
+   */
+  public static void update(@NotNull Player player) {
+    update(player, player.getLocation());
+  }
+
+  /**
+   * Updates the index with the given location for the player. Does nothing if the player is still
+   * in the same cell.
+   *
+   * @param player   The player.
+   * @param location The player's new location.
+   */
+  public static void update(@NotNull Player player, @NotNull Location location) {
+
+    World world = location.getWorld();
+
+    if (world == null) {
+      return;
+    }
+
+    Cell cell = new Cell(world.getUID(), cellKey(location.getBlockX() >> CELL_SHIFT,
+        location.getBlockZ() >> CELL_SHIFT));
+    Cell previous = cells.put(player.getUniqueId(), cell);
+
+    if (cell.equals(previous)) {
+      return;
+    }
+
+    if (previous != null) {
+      removeFromCell(player, previous);
+    }
+
+    worlds.computeIfAbsent(cell.world(), id -> new ConcurrentHashMap<>())
+        .compute(cell.key(), (key, players) -> {
+          Set<Player> set = players == null ? ConcurrentHashMap.newKeySet() : players;
+          set.add(player);
+          return set;
+        });
+
+  }
+
+  /**
+   * Removes the player from the index.
+   *
+   * @param player The player.
+   */
+  public static void remove(@NotNull Player player) {
+
+    Cell previous = cells.remove(player.getUniqueId());
+
+    if (previous != null) {
+      removeFromCell(player, previous);
+    }
+
+  }
+
+  /**
+   * Drops the index of the given world. Called when the world is unloaded, since the world's id
+   * isn't used again.
+   *
+   * @param world The world.
+   */
+  public static void removeWorld(@NotNull World world) {
+
+    UUID id = world.getUID();
+
+    worlds.remove(id);
+    cells.values().removeIf(cell -> cell.world().equals(id));
+
+  }
+
+  /**
+   * Gets the closest {@link Player} to the given {@link Location}.
+   *
+   * @param location The location to search from.
+   * @return The closest player, or null if there are no players in the world.
+   */
+  @Nullable
+  public static Player nearest(@NotNull Location location) {
+
+    List<Player> nearest = nearest(location, 1);
+
+    return nearest.isEmpty() ? null : nearest.get(0);
+
+  }
+
+  /**
+   * Gets up to {@code k} players closest to the given {@link Location}, closest first. Searches
+   * outwards one ring of chunks at a time, and stops once no unsearched chunk could be closer.
+   *
+   * @param location The location to search from.
+   * @param k        The maximum number of players to return.
+   * @return The closest players, closest first.
+   */
+  public static @NotNull List<Player> nearest(@NotNull Location location, int k) {
+
+    Map<Long, Set<Player>> grid = grid(location);
+
+    if (grid == null || k <= 0) {
+      return List.of();
+    }
+
+    int centerX = location.getBlockX() >> CELL_SHIFT;
+    int centerZ = location.getBlockZ() >> CELL_SHIFT;
+    Location scratch = new Location(null, 0, 0, 0);
+
+    List<Player> found = new ArrayList<>();
+    List<Double> distances = new ArrayList<>();
+
+    for (int ring = 0; ; ring++) {
+
+      long side = 2L * ring + 1;
+
+      if (side * side > grid.size() * 4L + 9) {
+        return nearestInAll(grid, location, k);
+      }
+
+      for (int x = centerX - ring; x <= centerX + ring; x++) {
+        for (int z = centerZ - ring; z <= centerZ + ring; z++) {
+
+          if (Math.abs(x - centerX) != ring && Math.abs(z - centerZ) != ring) {
+            continue;
+          }
+
+          Set<Player> players = grid.get(cellKey(x, z));
+
+          if (players != null) {
+            for (Player player : players) {
+              insertNearest(found, distances, k, player, location, scratch);
+            }
+          }
+
+        }
+      }
+
+      //Any player in the next ring is at least this far away
+      double minNextDistance = (double) ring * CELL_SIZE;
+
+      if (found.size() >= k && distances.get(found.size() - 1)
+          <= minNextDistance * minNextDistance) {
+        return found;
+      }
+
+    }
+
+  }
+
+  /**
+   * Gets every player within the given radius of the {@link Location}.
+   *
+   * @param location The location to search from.
+   * @param radius   The radius in blocks.
+   * @return The players within the radius, in no particular order.
+   */
+  public static @NotNull List<Player> withinRadius(@NotNull Location location, double radius) {
+
+    Map<Long, Set<Player>> grid = grid(location);
+
+    if (grid == null || radius < 0) {
+      return List.of();
+    }
+
+    double radiusSquared = radius * radius;
+    Location scratch = new Location(null, 0, 0, 0);
+    List<Player> result = new ArrayList<>();
+
+    int minX = (int) Math.floor(location.getX() - radius) >> CELL_SHIFT;
+    int maxX = (int) Math.floor(location.getX() + radius) >> CELL_SHIFT;
+    int minZ = (int) Math.floor(location.getZ() - radius) >> CELL_SHIFT;
+    int maxZ = (int) Math.floor(location.getZ() + radius) >> CELL_SHIFT;
+
+    long cellCount = (long) (maxX - minX + 1) * (maxZ - minZ + 1);
+
+    if (cellCount > grid.size()) {
+
+      for (Set<Player> players : grid.values()) {
+        addWithin(result, players, location, radiusSquared, scratch);
+      }
+
+      return result;
+
+    }
+
+    for (int x = minX; x <= maxX; x++) {
+      for (int z = minZ; z <= maxZ; z++) {
+
+        Set<Player> players = grid.get(cellKey(x, z));
+
+        if (players != null) {
+          addWithin(result, players, location, radiusSquared, scratch);
+        }
+
+      }
+    }
+
+    return result;
+
+  }
+
+  /**
+   * Gets every indexed player in the given {@link World}.
+   *
+   * @param world The world.
+   * @return The players in the world, in no particular order.
+   */
+  public static @NotNull List<Player> players(@NotNull World world) {
+
+    Map<Long, Set<Player>> grid = worlds.get(world.getUID());
+
+    if (grid == null) {
+      return List.of();
+    }
+
+    List<Player> result = new ArrayList<>();
+    grid.values().forEach(result::addAll);
+
+    return result;
+
+  }
+
+  /**
+   * Gets a random player within the given radius of the {@link Location}.
+   *
+   * @param location The location to search from.
+   * @param radius   The radius in blocks.
+   * @param random   The random object used to pick the player.
+   * @return A random player within the radius, or null if there are none.
+   */
+  @Nullable
+  public static Player randomWithinRadius(@NotNull Location location, double radius,
+      @NotNull Random random) {
+
+    List<Player> players = withinRadius(location, radius);
+
+    if (players.isEmpty()) {
+      return null;
+    }
+
+    return players.get(random.nextInt(players.size()));
+
+  }
+
+  private static @NotNull List<Player> nearestInAll(@NotNull Map<Long, Set<Player>> grid,
+      @NotNull Location location, int k) {
+
+    List<Player> players = new ArrayList<>();
+    grid.values().forEach(players::addAll);
+
+    Location scratch = new Location(null, 0, 0, 0);
+    players.sort(Comparator.comparingDouble(
+        player -> player.getLocation(scratch).distanceSquared(location)));
+
+    return players.size() > k ? players.subList(0, k) : players;
+
+  }
+
+  /**
+   * Inserts a player into a list of the k closest players found so far, kept sorted by distance.
+   */
+  private static void insertNearest(@NotNull List<Player> found, @NotNull List<Double> distances,
+      int k, @NotNull Player player, @NotNull Location location, @NotNull Location scratch) {
+
+    Location playerLocation = player.getLocation(scratch);
+
+    if (playerLocation.getWorld() != location.getWorld()) {
+      return;
+    }
+
+    double distance = playerLocation.distanceSquared(location);
+
+    if (found.size() >= k && distance >= distances.get(found.size() - 1)) {
+      return;
+    }
+
+    int index = found.size();
+
+    while (index > 0 && distances.get(index - 1) > distance) {
+      index--;
+    }
+
+    found.add(index, player);
+    distances.add(index, distance);
+
+    if (found.size() > k) {
+      found.remove(k);
+      distances.remove(k);
+    }
+
+  }
+
+  private static void addWithin(@NotNull List<Player> result, @NotNull Set<Player> players,
+      @NotNull Location location, double radiusSquared, @NotNull Location scratch) {
+
+    for (Player player : players) {
+
+      Location playerLocation = player.getLocation(scratch);
+
+      if (playerLocation.getWorld() == location.getWorld()
+          && playerLocation.distanceSquared(location) <= radiusSquared) {
+        result.add(player);
+      }
+
+    }
+
+  }
+
+  @Nullable
+  private static Map<Long, Set<Player>> grid(@NotNull Location location) {
+
+    World world = location.getWorld();
+
+    if (world == null) {
+      return null;
+    }
+
+    return worlds.get(world.getUID());
+
+  }
+
+  private static void removeFromCell(@NotNull Player player, @NotNull Cell cell) {
+
+    Map<Long, Set<Player>> grid = worlds.get(cell.world());
+
+    if (grid == null) {
+      return;
+    }
+
+    grid.computeIfPresent(cell.key(), (key, players) -> {
+      players.remove(player);
+      return players.isEmpty() ? null : players;
+    });
+
+  }
+
+  private static long cellKey(int x, int z) {
+    return ((long) x << 32) | (z & 0xFFFFFFFFL);
+  }
+
+}
\ No newline at end of file
@@ -1,18 +1,16 @@
 package dev.michaud.greenpanda.core.util;
 
+import java.util.Arrays;
 import java.util.List;
-import java.util.Objects;
 import java.util.Random;
-import java.util.concurrent.ThreadLocalRandom;
-import java.util.stream.Stream;
-import org.bukkit.Bukkit;
+import java.util.function.Consumer;
 import org.bukkit.Location;
 import org.bukkit.World;
-import org.bukkit.command.BlockCommandSender;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 /**
@@ -20,10 +18,9 @@ import org.jetbrains.annotations.Nullable;
  */
 public class TargetSelectors {
 
-  //TODO: Add support for parameters (like @e[type=panda])
-
   /**
-   * Gets an {@link Entity} list from the given target selector.
+   * Gets an {@link Entity} list from the given target selector. Selectors can have arguments (like
+   * {@code @e[type=panda,distance=..20]}), see {@link EntitySelector} for the supported ones.
    *
    * @param sender The sender of the command.
    * @param arg    The target selector.
@@ -32,50 +29,77 @@ public class TargetSelectors {
   @Nullable
   public static Entity[] getTargets(CommandSender sender, String arg) {
 
-    Entity[] result = null;
-    Location location = null;
+    EntitySelector selector = EntitySelector.compile(arg);
 
-    if (sender instanceof Entity entity) {
-      location = entity.getLocation();
-    } else if (sender instanceof BlockCommandSender cmdBlock) {
-      location = cmdBlock.getBlock().getLocation().add(0.5, 0, 0.5);
+    if (selector == null) {
+      return null;
     }
 
-    if (arg.startsWith("@s")) {
+    List<Entity> result = selector.select(sender);
 
-      if (sender instanceof Entity entity) {
-        result = new Entity[]{entity};
-      }
+    if (result.isEmpty()) {
+      return null;
+    }
 
-    } else if (arg.startsWith("@a")) {
+    return result.toArray(new Entity[0]);
 
-      if (location != null) {
-        result = location.getWorld().getPlayers().toArray(new Player[0]);
-      }
+  }
 
-    } else if (arg.startsWith("@p")) {
+  /**
+   * Gets the entities of the given class from the given target selector. Entities of other classes
+   * are skipped while the selector runs, so no intermediate array is built. For example,
+   * {@code getTargets(sender, "@a", Player.class)}.
+   *
+   * @param sender The sender of the command.
+   * @param arg    The target selector.
+   * @param clazz  The class of entity to get.
+   * @param <T>    The type of entity.
+   * @return A list of entities, null if the target selector is invalid or no entities were found.
+   */
+  @Nullable
+  public static <T extends Entity> List<T> getTargets(CommandSender sender, String arg,
+      @NotNull Class<T> clazz) {
 
-      Player closest = closestPlayer(location);
+    EntitySelector selector = EntitySelector.compile(arg);
 
-      if (closest != null) {
-        result = new Entity[]{closest};
-      }
+    if (selector == null) {
+      return null;
+    }
 
-    } else if (arg.startsWith("@e")) {
+    List<T> result = selector.select(sender, clazz);
 
-      if (location != null) {
-        result = location.getWorld().getEntities().toArray(new Entity[0]);
-      }
+    if (result.isEmpty()) {
+      return null;
+    }
 
-    } else if (arg.startsWith("@r")) {
+    return result;
 
-      if (location != null) {
-        result = new Entity[]{randomPlayer(location.getWorld(), ThreadLocalRandom.current())};
-      }
+  }
+
+  /**
+   * Gets the entities of the given class from the given target selector, on the thread that owns
+   * the selector's origin. Use this instead of {@link #getTargets(CommandSender, String, Class)}
+   * when the selector may search for entities other than players in another region (on Folia).
+   *
+   * @param sender   The sender of the command.
+   * @param arg      The target selector.
+   * @param clazz    The class of entity to get.
+   * @param callback Given the entities, or null if the target selector is invalid or no entities
+   *                 were found. May run later, on another thread.
+   * @param <T>      The type of entity.
+   * @see EntitySelector#select(CommandSender, Class, Consumer)
+   */
+  public static <T extends Entity> void getTargets(CommandSender sender, String arg,
+      @NotNull Class<T> clazz, @NotNull Consumer<List<T>> callback) {
 
+    EntitySelector selector = EntitySelector.compile(arg);
+
+    if (selector == null) {
+      callback.accept(null);
+      return;
     }
 
-    return result;
+    selector.select(sender, clazz, result -> callback.accept(result.isEmpty() ? null : result));
 
   }
 
@@ -92,14 +116,20 @@ public class TargetSelectors {
       return null;
     }
 
-    List<Player> players = Stream.of(entities).map(Entity::getUniqueId).map(Bukkit::getPlayer)
-        .filter(Objects::nonNull).filter(Player::isValid).toList();
+    Player[] players = new Player[entities.length];
+    int count = 0;
+
+    for (Entity entity : entities) {
+      if (entity instanceof Player player && player.isValid()) {
+        players[count++] = player;
+      }
+    }
 
-    if (players.isEmpty()) {
+    if (count == 0) {
       return null;
     }
 
-    return players.toArray(new Player[0]);
+    return count == players.length ? players : Arrays.copyOf(players, count);
 
   }
 
@@ -118,7 +148,7 @@ public class TargetSelectors {
     }
 
     List<Player> players = world.getPlayers();
-    return players.get(random.nextInt(players.size()));
+    return players.isEmpty() ? null : players.get(random.nextInt(players.size()));
 
   }
 
@@ -127,6 +157,7 @@ public class TargetSelectors {
    *
    * @param location The location to get the closest player from.
    * @return The closest player, null if there are no players.
+   * @see PlayerSpatialIndex#nearest(Location)
    */
   public static Player closestPlayer(Location location) {
 
@@ -134,17 +165,7 @@ public class TargetSelectors {
       return null;
     }
 
-    Player closest = null;
-    double closestDistance = Double.MAX_VALUE;
-
-    for (Player player : location.getWorld().getPlayers()) {
-      double distance = player.getLocation().distanceSquared(location);
-      if (distance < closestDistance) {
-        closest = player;
-        closestDistance = distance;
-      }
-    }
-    return closest;
+    return PlayerSpatialIndex.nearest(location);
 
   }
 
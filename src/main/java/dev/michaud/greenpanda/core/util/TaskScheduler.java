@@ -0,0 +1,186 @@
+package dev.michaud.greenpanda.core.util;
+
+import dev.michaud.greenpanda.core.GreenPandaCore;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Runs tasks on the right thread for the server. On Folia, work is sent to the scheduler of the
+ * region that owns the entity or location. Everywhere else, it runs on the main thread.
+ */
+public class TaskScheduler {
+
+  private static final boolean FOLIA = classExists(
+      "io.papermc.paper.threadedregions.RegionizedServer");
+
+  /**
+   * A scheduled task that can be cancelled.
+   */
+  @FunctionalInterface
+  public interface Task {
+
+    /**
+     * Cancels the task. Does nothing if it was already cancelled.
+     */
+    void cancel();
+
+  }
+
+  /**
+   * Checks if the server is running Folia.
+   *
+   * @return True if the server has regionised multithreading.
+   */
+  public static boolean isFolia() {
+    return FOLIA;
+  }
+
+  /**
+   * Checks if the current thread may access the given entity.
+   *
+   * @param entity The entity to check.
+   * @return True if the entity can be used on the current thread.
+   */
+  public static boolean isOwnedByCurrentRegion(@NotNull Entity entity) {
+    return FOLIA ? Bukkit.isOwnedByCurrentRegion(entity) : Bukkit.isPrimaryThread();
+  }
+
+  /**
+   * Checks if the current thread may access the given location.
+   *
+   * @param location The location to check.
+   * @return True if the location can be used on the current thread.
+   */
+  public static boolean isOwnedByCurrentRegion(@NotNull Location location) {
+    return FOLIA ? Bukkit.isOwnedByCurrentRegion(location) : Bukkit.isPrimaryThread();
+  }
+
+  /**
+   * Runs a task on the thread that owns the given entity. If the current thread already owns it,
+   * the task runs immediately. The task is dropped if the entity is removed before it can run.
+   *
+   * @param entity The entity the task uses.
+   * @param task   The task to run.
+   */
+  public static void runForEntity(@NotNull Entity entity, @NotNull Runnable task) {
+
+    if (isOwnedByCurrentRegion(entity)) {
+      task.run();
+      return;
+    }
+
+    if (FOLIA) {
+      entity.getScheduler().execute(GreenPandaCore.getCore(), task, null, 1L);
+    } else {
+      Bukkit.getScheduler().runTask(GreenPandaCore.getCore(), task);
+    }
+
+  }
+
+  /**
+   * Runs a task on the thread that owns the given entity after a delay. The task is dropped if the
+   * entity is removed before it can run.
+   *
+   * @param entity The entity the task uses.
+   * @param task   The task to run.
+   * @param delay  The delay in ticks. At least 1.
+   */
+  public static void runForEntityLater(@NotNull Entity entity, @NotNull Runnable task,
+      long delay) {
+
+    if (FOLIA) {
+      entity.getScheduler().execute(GreenPandaCore.getCore(), task, null, Math.max(1L, delay));
+    } else {
+      Bukkit.getScheduler().runTaskLater(GreenPandaCore.getCore(), task, Math.max(1L, delay));
+    }
+
+  }
+
+  /**
+   * Runs a task on the thread that owns the given location. If the current thread already owns it,
+   * the task runs immediately.
+   *
+   * @param location The location the task uses.
+   * @param task     The task to run.
+   */
+  public static void runAtLocation(@NotNull Location location, @NotNull Runnable task) {
+
+    if (isOwnedByCurrentRegion(location)) {
+      task.run();
+      return;
+    }
+
+    if (FOLIA) {
+      Bukkit.getRegionScheduler().execute(GreenPandaCore.getCore(), location, task);
+    } else {
+      Bukkit.getScheduler().runTask(GreenPandaCore.getCore(), task);
+    }
+
+  }
+
+  /**
+   * Runs a task that isn't tied to any entity or location. On Folia, this is the global region.
+   *
+   * @param task The task to run.
+   */
+  public static void runGlobal(@NotNull Runnable task) {
+
+    if (FOLIA) {
+      Bukkit.getGlobalRegionScheduler().execute(GreenPandaCore.getCore(), task);
+    } else {
+      Bukkit.getScheduler().runTask(GreenPandaCore.getCore(), task);
+    }
+
+  }
+
+  /**
+   * Repeatedly runs a task that isn't tied to any entity or location. On Folia, this is the global
+   * region.
+   *
+   * @param task   The task to run.
+   * @param delay  The delay in ticks before the first run. At least 1.
+   * @param period The period in ticks between runs. At least 1.
+   * @return The scheduled task.
+   */
+  public static @NotNull Task runGlobalTimer(@NotNull Runnable task, long delay, long period) {
+
+    if (FOLIA) {
+      return Bukkit.getGlobalRegionScheduler().runAtFixedRate(GreenPandaCore.getCore(),
+          scheduled -> task.run(), Math.max(1L, delay), Math.max(1L, period))::cancel;
+    }
+
+    BukkitTask bukkitTask = Bukkit.getScheduler().runTaskTimer(GreenPandaCore.getCore(), task,
+        Math.max(1L, delay), Math.max(1L, period));
+
+    return bukkitTask::cancel;
+
+  }
+
+  /**
+   * Runs a task off the main thread.
+   *
+   * @param task The task to run.
+   */
+  public static void runAsync(@NotNull Runnable task) {
+
+    if (FOLIA) {
+      Bukkit.getAsyncScheduler().runNow(GreenPandaCore.getCore(), scheduled -> task.run());
+    } else {
+      Bukkit.getScheduler().runTaskAsynchronously(GreenPandaCore.getCore(), task);
+    }
+
+  }
+
+  private static boolean classExists(@NotNull String name) {
+    try {
+      Class.forName(name);
+      return true;
+    } catch (ClassNotFoundException e) {
+      return false;
+    }
+  }
+
+}
\ No newline at end of file
@@ -0,0 +1,69 @@
+package dev.michaud.greenpanda.core.item;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.bukkit.NamespacedKey;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link CustomItemKeys}.
+ */
+class CustomItemKeysTest {
+
+  private static final JavaPlugin PLUGIN = TestItem.plugin("KeysTest");
+
+  @Test
+  void validIdsAreKeptAsIs() {
+
+    NamespacedKey key = CustomItemKeys.itemKey(PLUGIN, "emerald_sword");
+
+    assertEquals("keystest", key.getNamespace());
+    assertEquals("emerald_sword", key.getKey());
+
+  }
+
+  @Test
+  void invalidIdsAreNormalizedAndHashed() {
+
+    NamespacedKey key = CustomItemKeys.itemKey(PLUGIN, "Emerald Sword");
+
+    assertEquals("emerald_sword_" + Integer.toHexString("Emerald Sword".hashCode()), key.getKey());
+
+  }
+
+  @Test
+  void idsThatNormalizeAlikeGetDifferentKeys() {
+
+    NamespacedKey valid = CustomItemKeys.itemKey(PLUGIN, "emerald_sword");
+    NamespacedKey spaced = CustomItemKeys.itemKey(PLUGIN, "emerald sword");
+    NamespacedKey upper = CustomItemKeys.itemKey(PLUGIN, "Emerald_Sword");
+
+    assertNotEquals(valid, spaced);
+    assertNotEquals(valid, upper);
+    assertNotEquals(spaced, upper);
+
+  }
+
+  @Test
+  void idKeyIsCachedPerPlugin() {
+
+    NamespacedKey key = CustomItemKeys.customIdKey(PLUGIN);
+
+    assertSame(key, CustomItemKeys.customIdKey(PLUGIN));
+    assertEquals("custom_item_id", key.getKey());
+
+  }
+
+  @Test
+  void idKeyIsSharedByReloadedPlugins() {
+
+    JavaPlugin reloaded = TestItem.plugin("KeysTest");
+
+    assertSame(CustomItemKeys.customIdKey(PLUGIN), CustomItemKeys.customIdKey(reloaded));
+
+  }
+
+}
@@ -0,0 +1,164 @@
+package dev.michaud.greenpanda.core.item;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.bukkit.NamespacedKey;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Hammers the {@link ItemRegistry} with batched writes while other threads read it, and checks
+ * that every read sees a whole snapshot.
+ */
+class ItemRegistryStressTest {
+
+  private static final int READERS = 4;
+  private static final int ROUNDS = 2_000;
+  private static final int PAIRS = 8;
+
+  private static final JavaPlugin PLUGIN = TestItem.plugin("stress");
+
+  /**
+   * Registers and removes items in pairs with {@link ItemRegistry#batch}, so a reader that sees
+   * one item of a pair without the other has read a half-applied change.
+   */
+  @Test
+  void readersNeverSeeHalfAppliedBatches() throws InterruptedException {
+
+    final AtomicBoolean done = new AtomicBoolean();
+    final AtomicReference<Throwable> failure = new AtomicReference<>();
+    final CountDownLatch started = new CountDownLatch(READERS);
+    final List<Thread> readers = new ArrayList<>();
+
+    for (int i = 0; i < READERS; i++) {
+
+      Thread reader = new Thread(() -> {
+
+        started.countDown();
+
+        try {
+          while (!done.get()) {
+            checkPairs(ItemRegistry.getKeyedMap());
+            checkPairs(ItemRegistry.getValues(TestItem.class));
+          }
+        } catch (Throwable e) {
+          failure.compareAndSet(null, e);
+        }
+
+      }, "registry-reader-" + i);
+
+      reader.start();
+      readers.add(reader);
+
+    }
+
+    started.await();
+
+    try {
+      for (int round = 0; round < ROUNDS && failure.get() == null; round++) {
+
+        final int pair = round % PAIRS;
+        final TestItem first = new TestItem(PLUGIN, "pair_" + pair + "_a");
+        final TestItem second = new TestItem(PLUGIN, "pair_" + pair + "_b");
+
+        assertTrue(ItemRegistry.batch(batch -> {
+          batch.register(first);
+          batch.register(second);
+        }));
+
+        assertTrue(ItemRegistry.batch(batch -> {
+          batch.unregister(first);
+          batch.unregister(second);
+        }));
+
+      }
+    } finally {
+      done.set(true);
+
+      for (Thread reader : readers) {
+        reader.join();
+      }
+    }
+
+    assertNull(failure.get(), () -> "Reader failed: " + failure.get());
+    assertTrue(ItemRegistry.getValues(TestItem.class).stream()
+        .noneMatch(item -> item.customId().startsWith("pair_")));
+
+  }
+
+  /**
+   * Updating an item with the same instance must still drop its prototype, so the next
+   * {@link CustomItem#makeItem()} builds it again.
+   */
+  @Test
+  void changedKeysDropTheirPrototype() {
+
+    final TestItem item = new TestItem(PLUGIN, "prototype");
+    final NamespacedKey key = item.namespacedId();
+    final Map<NamespacedKey, CustomItem> items = Map.of(key, item);
+    final HandleTable table = new HandleTable();
+
+    RegistrySnapshot first = new RegistrySnapshot(items, table, null, Set.of(key));
+    int handle = first.handle(item);
+    ItemStack prototype = mock(ItemStack.class);
+    first.prototypes.set(handle, prototype);
+
+    RegistrySnapshot unchanged = new RegistrySnapshot(items, table, first, Set.of());
+    assertSame(prototype, unchanged.prototypes.get(handle));
+
+    RegistrySnapshot updated = new RegistrySnapshot(items, table, unchanged, Set.of(key));
+    assertNull(updated.prototypes.get(handle));
+    assertEquals(handle, updated.handle(item));
+
+  }
+
+  private static void checkPairs(Map<NamespacedKey, CustomItem> items) {
+    checkPairs(items.values());
+  }
+
+  private static void checkPairs(Iterable<? extends CustomItem> items) {
+
+    for (CustomItem item : items) {
+
+      String id = item.customId();
+
+      if (!id.startsWith("pair_")) {
+        continue;
+      }
+
+      String other = id.endsWith("_a")
+          ? id.substring(0, id.length() - 1) + "b"
+          : id.substring(0, id.length() - 1) + "a";
+
+      assertNotNull(find(items, other), () -> id + " is registered without " + other);
+
+    }
+
+  }
+
+  private static CustomItem find(Iterable<? extends CustomItem> items, String id) {
+
+    for (CustomItem item : items) {
+      if (item.customId().equals(id)) {
+        return item;
+      }
+    }
+
+    return null;
+
+  }
+
+}
@@ -0,0 +1,51 @@
+package dev.michaud.greenpanda.core.item;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.bukkit.plugin.java.JavaPlugin;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for looking up items in the {@link ItemRegistry}.
+ */
+class ItemRegistryTest {
+
+  private static final JavaPlugin PLUGIN = TestItem.plugin("Lookup");
+
+  @Test
+  void findsByCustomIdAndNamespacedId() {
+
+    TestItem item = new TestItem(PLUGIN, "lookup_plain");
+    assertTrue(ItemRegistry.registerItem(item));
+
+    try {
+      assertSame(item, ItemRegistry.findCustomItem("lookup_plain"));
+      assertSame(item, ItemRegistry.findCustomItem("lookup:lookup_plain"));
+      assertSame(item, ItemRegistry.findCustomItem("Lookup:lookup_plain"));
+      assertNull(ItemRegistry.findCustomItem("other:lookup_plain"));
+    } finally {
+      ItemRegistry.unregisterItem(item);
+    }
+
+  }
+
+  @Test
+  void findsCustomIdsContainingAColon() {
+
+    TestItem item = new TestItem(PLUGIN, "legacy:sword");
+    assertTrue(ItemRegistry.registerItem(item));
+
+    try {
+      assertSame(item, ItemRegistry.findCustomItem("legacy:sword"));
+      assertSame(item, ItemRegistry.findCustomItem(item.namespacedId()));
+      assertTrue(ItemRegistry.batch(batch -> assertTrue(batch.unregister("legacy:sword"))));
+      assertNull(ItemRegistry.findCustomItem("legacy:sword"));
+    } finally {
+      ItemRegistry.unregisterItem(item);
+    }
+
+  }
+
+}
@@ -0,0 +1,47 @@
+package dev.michaud.greenpanda.core.item;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link KeyIndex}.
+ */
+class KeyIndexTest {
+
+  private final KeyIndex index = new KeyIndex(
+      List.of("stone_sword", "Stick", "diamond", "stone", "steel_axe", "apple"));
+
+  @Test
+  void findsPrefixMatchesInOrder() {
+    assertEquals(List.of("steel_axe", "Stick", "stone", "stone_sword"), index.withPrefix("st", 10));
+  }
+
+  @Test
+  void ignoresCase() {
+    assertEquals(List.of("stone", "stone_sword"), index.withPrefix("STO", 10));
+  }
+
+  @Test
+  void stopsAtTheLimit() {
+    assertEquals(List.of("steel_axe", "Stick"), index.withPrefix("st", 2));
+    assertTrue(index.withPrefix("st", 0).isEmpty());
+  }
+
+  @Test
+  void emptyPrefixReturnsEverything() {
+    assertEquals(List.of("apple", "diamond", "steel_axe", "Stick", "stone", "stone_sword"),
+        index.withPrefix("", 10));
+    assertEquals(List.of("apple", "diamond"), index.withPrefix("", 2));
+  }
+
+  @Test
+  void noMatches() {
+    assertTrue(index.withPrefix("zzz", 10).isEmpty());
+    assertTrue(index.withPrefix("stones", 10).isEmpty());
+    assertTrue(new KeyIndex(List.of()).withPrefix("a", 10).isEmpty());
+  }
+
+}
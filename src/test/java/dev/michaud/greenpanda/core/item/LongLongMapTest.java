@@ -0,0 +1,124 @@
+package dev.michaud.greenpanda.core.item;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link LongLongMap}.
+ */
+class LongLongMapTest {
+
+  @Test
+  void putGetAndOverwrite() {
+
+    LongLongMap map = new LongLongMap();
+
+    map.put(1, 10);
+    map.put(2, 20);
+    map.put(1, 11);
+
+    assertEquals(11, map.get(1, -1));
+    assertEquals(20, map.get(2, -1));
+    assertEquals(-1, map.get(3, -1));
+    assertEquals(2, map.size());
+
+  }
+
+  @Test
+  void removeMissingKey() {
+
+    LongLongMap map = new LongLongMap();
+    map.put(5, 50);
+
+    assertFalse(map.remove(6));
+    assertEquals(1, map.size());
+
+  }
+
+  /**
+   * Fills the table with a probe chain, then removes from the middle of it. Every later key in the
+   * chain must still be found after the backward shift.
+   */
+  @Test
+  void removeKeepsLaterProbesReachable() {
+
+    LongLongMap map = new LongLongMap();
+
+    for (long key = 0; key < 8; key++) {
+      map.put(key, key * 100);
+    }
+
+    for (long key = 0; key < 8; key += 2) {
+      assertTrue(map.remove(key));
+    }
+
+    for (long key = 0; key < 8; key++) {
+      assertEquals(key % 2 == 0 ? -1 : key * 100, map.get(key, -1));
+    }
+
+    assertEquals(4, map.size());
+
+  }
+
+  /**
+   * Runs random puts and removes over a small key range, so probe chains collide and wrap often,
+   * and checks every key against a {@link HashMap} after each step.
+   */
+  @Test
+  void matchesHashMapUnderRandomChanges() {
+
+    LongLongMap map = new LongLongMap();
+    Map<Long, Long> expected = new HashMap<>();
+    Random random = new Random(42);
+
+    for (int step = 0; step < 20_000; step++) {
+
+      long key = random.nextInt(64);
+
+      if (random.nextInt(3) == 0) {
+        assertEquals(expected.remove(key) != null, map.remove(key));
+      } else {
+        long value = random.nextLong();
+        expected.put(key, value);
+        map.put(key, value);
+      }
+
+      assertEquals(expected.size(), map.size());
+
+      if (step % 64 == 0) {
+        for (long k = 0; k < 64; k++) {
+          assertEquals((long) expected.getOrDefault(k, -1L), map.get(k, -1));
+        }
+      }
+
+    }
+
+    Map<Long, Long> seen = new HashMap<>();
+    map.forEach(seen::put);
+    assertEquals(expected, seen);
+
+  }
+
+  @Test
+  void clearRemovesEverything() {
+
+    LongLongMap map = new LongLongMap();
+
+    for (long key = 0; key < 100; key++) {
+      map.put(key, key);
+    }
+
+    map.clear();
+
+    assertEquals(0, map.size());
+    assertEquals(-1, map.get(50, -1));
+
+  }
+
+}
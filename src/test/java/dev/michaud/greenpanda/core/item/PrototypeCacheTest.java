@@ -0,0 +1,70 @@
+package dev.michaud.greenpanda.core.item;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that {@link PrototypeCache#open(File)} starts empty instead of failing on corrupt files.
+ */
+class PrototypeCacheTest {
+
+  private static final int MAGIC = 0x47504331;
+
+  @Test
+  void missingFile() throws IOException {
+    assertNotNull(PrototypeCache.open(new File("does-not-exist.bin")));
+  }
+
+  @Test
+  void hugeKeyLength() throws IOException {
+    assertNotNull(open(MAGIC, 1, Integer.MAX_VALUE));
+  }
+
+  @Test
+  void negativeLengths() throws IOException {
+    assertNotNull(open(MAGIC, 1, -1));
+    assertNotNull(open(MAGIC, -1));
+  }
+
+  @Test
+  void hugeEntryCount() throws IOException {
+    assertNotNull(open(MAGIC, Integer.MAX_VALUE, 0));
+  }
+
+  @Test
+  void truncatedEntry() throws IOException {
+    assertNotNull(open(MAGIC, 1, 0));
+  }
+
+  @Test
+  void wrongMagic() throws IOException {
+    assertNotNull(open(0xCAFEBABE, 0));
+  }
+
+  private static PrototypeCache open(int... ints) throws IOException {
+
+    File file = File.createTempFile("prototypes", ".bin");
+
+    try {
+
+      try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file))) {
+        for (int value : ints) {
+          out.writeInt(value);
+        }
+      }
+
+      return PrototypeCache.open(file);
+
+    } finally {
+      Files.deleteIfExists(file.toPath());
+    }
+
+  }
+
+}
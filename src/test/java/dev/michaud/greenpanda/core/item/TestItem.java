@@ -0,0 +1,55 @@
+package dev.michaud.greenpanda.core.item;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import net.kyori.adventure.text.Component;
+import org.bukkit.Material;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A plain {@link CustomItem} for tests, owned by a mocked plugin.
+ *
+ * @param plugin   The owner plugin.
+ * @param customId The custom id.
+ */
+record TestItem(@NotNull JavaPlugin plugin, @NotNull String customId) implements CustomItem {
+
+  /**
+   * Makes a mocked plugin with the given name. Only {@link JavaPlugin#getName()} is stubbed, which
+   * is all the item keys need.
+   *
+   * @param name The plugin name.
+   * @return The mocked plugin.
+   */
+  static @NotNull JavaPlugin plugin(@NotNull String name) {
+
+    JavaPlugin plugin = mock(JavaPlugin.class);
+    when(plugin.getName()).thenReturn(name);
+
+    return plugin;
+
+  }
+
+  @Override
+  public @NotNull JavaPlugin getOwnerPlugin() {
+    return plugin;
+  }
+
+  @Override
+  public int customModelData() {
+    return 0;
+  }
+
+  @Override
+  public Component displayName() {
+    return null;
+  }
+
+  @Override
+  public @NotNull Material baseMaterial() {
+    return Material.PAPER;
+  }
+
+}
@@ -0,0 +1,47 @@
+package dev.michaud.greenpanda.core.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the item call counters in {@link Metrics}.
+ */
+class MetricsTest {
+
+  @Test
+  void busiestItemsSkipsIdleItemsAndSortsByCalls() {
+
+    Metrics.reset();
+
+    Metrics.itemCalls("test:idle");
+    Metrics.itemCalls("test:quiet").isType().add(2);
+    Metrics.itemCalls("test:busy").makeItem().add(5);
+    Metrics.itemCalls("test:busy").isType().add(5);
+
+    List<Metrics.ItemCallCounts> busiest = Metrics.busiestItems(10);
+
+    assertEquals(List.of("test:busy", "test:quiet"),
+        busiest.stream().map(Metrics.ItemCallCounts::id).toList());
+    assertEquals(10, busiest.get(0).total());
+    assertEquals(2, Metrics.calledItemCount());
+    assertEquals(1, Metrics.busiestItems(1).size());
+
+  }
+
+  @Test
+  void namedCountersLeaveOutItems() {
+
+    Metrics.counter("test.counter").increment();
+    Metrics.itemCalls("test:item").makeItem().increment();
+
+    assertTrue(Metrics.namedCounterValues().containsKey("test.counter"));
+    assertFalse(Metrics.namedCounterValues().keySet().stream().anyMatch(k -> k.startsWith("item.")));
+    assertTrue(Metrics.counterValues().containsKey("item.test:item.make_item"));
+
+  }
+
+}
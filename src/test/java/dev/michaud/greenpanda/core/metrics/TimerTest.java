@@ -0,0 +1,94 @@
+package dev.michaud.greenpanda.core.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link Timer}. Percentiles are reported as the upper bound of their power-of-two
+ * bucket.
+ */
+class TimerTest {
+
+  @Test
+  void emptySnapshotIsZero() {
+
+    Timer.Snapshot snapshot = new Timer("empty").snapshot();
+
+    assertEquals(0, snapshot.count());
+    assertEquals(0, snapshot.p50Nanos());
+    assertEquals(0, snapshot.p99Nanos());
+    assertEquals(0, snapshot.meanNanos());
+
+  }
+
+  @Test
+  void percentilesUseBucketUpperBounds() {
+
+    Timer timer = new Timer("buckets");
+
+    //99 durations in the 64..127 bucket, and one in the 1024..2047 bucket
+    for (int i = 0; i < 99; i++) {
+      timer.record(100);
+    }
+
+    timer.record(1500);
+
+    Timer.Snapshot snapshot = timer.snapshot();
+
+    assertEquals(100, snapshot.count());
+    assertEquals(127, snapshot.p50Nanos());
+    assertEquals(127, snapshot.p99Nanos());
+    assertEquals(1500, snapshot.maxNanos());
+    assertEquals((99 * 100 + 1500) / 100, snapshot.meanNanos());
+
+  }
+
+  @Test
+  void p99FallsInTheSlowBucket() {
+
+    Timer timer = new Timer("tail");
+
+    for (int i = 0; i < 98; i++) {
+      timer.record(100);
+    }
+
+    timer.record(1500);
+    timer.record(1500);
+
+    assertEquals(127, timer.snapshot().p50Nanos());
+    assertEquals(2047, timer.snapshot().p99Nanos());
+
+  }
+
+  @Test
+  void zeroAndNegativeDurations() {
+
+    Timer timer = new Timer("zero");
+
+    timer.record(0);
+    timer.record(-5);
+
+    Timer.Snapshot snapshot = timer.snapshot();
+
+    assertEquals(1, snapshot.count());
+    assertEquals(0, snapshot.p99Nanos());
+
+  }
+
+  @Test
+  void resetClearsEverything() {
+
+    Timer timer = new Timer("reset");
+    timer.record(1000);
+    timer.reset();
+
+    Timer.Snapshot snapshot = timer.snapshot();
+
+    assertEquals(0, snapshot.count());
+    assertEquals(0, snapshot.maxNanos());
+    assertEquals(0, snapshot.totalNanos());
+
+  }
+
+}
@@ -0,0 +1,69 @@
+package dev.michaud.greenpanda.core.util;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link EntitySelector#parse(String)} and {@link EntitySelector#compile(String)}.
+ */
+class EntitySelectorTest {
+
+  @Test
+  void parsesEveryBase() {
+    for (String selector : new String[]{"@s", "@a", "@p", "@r", "@e", " @a "}) {
+      assertDoesNotThrow(() -> EntitySelector.parse(selector), selector);
+    }
+  }
+
+  @Test
+  void parsesArguments() {
+    assertDoesNotThrow(() -> EntitySelector.parse(
+        "@e[x=1,y=64.5,z=-3,dx=2,dy=2,dz=2,distance=..10,tag=boss,tag=!minion,limit=3,"
+            + "sort=nearest]"));
+    assertDoesNotThrow(() -> EntitySelector.parse("@a[gamemode=!creative,name=!\"Some, Name\"]"));
+    assertDoesNotThrow(() -> EntitySelector.parse("@a[distance=5]"));
+    assertDoesNotThrow(() -> EntitySelector.parse("@a[distance=2..]"));
+  }
+
+  @Test
+  void rejectsMalformedSelectors() {
+    assertThrows(IllegalArgumentException.class, () -> EntitySelector.parse("a"));
+    assertThrows(IllegalArgumentException.class, () -> EntitySelector.parse("@"));
+    assertThrows(IllegalArgumentException.class, () -> EntitySelector.parse("@x"));
+    assertThrows(IllegalArgumentException.class, () -> EntitySelector.parse("@a[limit=1"));
+    assertThrows(IllegalArgumentException.class, () -> EntitySelector.parse("@a[limit]"));
+    assertThrows(IllegalArgumentException.class, () -> EntitySelector.parse("@a[colour=red]"));
+  }
+
+  @Test
+  void rejectsInvalidValues() {
+    assertThrows(IllegalArgumentException.class, () -> EntitySelector.parse("@a[limit=0]"));
+    assertThrows(IllegalArgumentException.class, () -> EntitySelector.parse("@s[limit=2]"));
+    assertThrows(IllegalArgumentException.class, () -> EntitySelector.parse("@s[sort=random]"));
+    assertThrows(IllegalArgumentException.class, () -> EntitySelector.parse("@a[sort=sideways]"));
+    assertThrows(IllegalArgumentException.class, () -> EntitySelector.parse("@a[x=north]"));
+    assertThrows(IllegalArgumentException.class, () -> EntitySelector.parse("@a[distance=..]"));
+    assertThrows(IllegalArgumentException.class, () -> EntitySelector.parse("@a[distance=5..2]"));
+    assertThrows(IllegalArgumentException.class, () -> EntitySelector.parse("@a[gamemode=fly]"));
+    assertThrows(IllegalArgumentException.class,
+        () -> EntitySelector.parse("@a[name=Steve,name=Alex]"));
+  }
+
+  @Test
+  void compileCachesAndReturnsNullForInvalid() {
+
+    EntitySelector selector = EntitySelector.compile("@a[limit=2]");
+
+    assertNotNull(selector);
+    assertSame(selector, EntitySelector.compile("@a[limit=2]"));
+    assertNull(EntitySelector.compile("@a[limit=0]"));
+    assertNull(EntitySelector.compile(null));
+
+  }
+
+}